@@ -0,0 +1,103 @@
+/*
+ * AdminSerializerBenchmark.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tomakehurst.wiremock.admin.model.PathParams;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.mindprogeny.wiremock.extension.scenario.admin.task.GetScenario;
+import com.mindprogeny.wiremock.extension.scenario.admin.task.ListActiveScenarios;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
+
+/**
+ * Measures the admin listing of scenarios, serialized to JSON, for a whole store and for a page of a scenario.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdminSerializerBenchmark {
+
+    /**
+     * Number of instances in the store, spread over 4 scenarios
+     */
+    @Param({"1000", "100000"})
+    public int instances;
+
+    /**
+     * Scenario store implementation
+     */
+    @Param({"concurrent", "primitive"})
+    public String store;
+
+    private ListActiveScenarios listActiveScenarios;
+
+    private GetScenario getScenario;
+
+    private Request listRequest;
+
+    private Request pageRequest;
+
+    private PathParams pathParams;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ScenarioStore scenarios = ScenarioStore.forName(store);
+        for (int i = 0; i < instances; i++) {
+            scenarios.setState("AdminBenchmark" + (i & 3), "instance" + i, "STATE" + (i % 10));
+        }
+        listActiveScenarios = new ListActiveScenarios(scenarios);
+        getScenario = new GetScenario(scenarios);
+        listRequest = new BenchmarkRequest(RequestMethod.GET, "/__admin/concurrent-scenarios");
+        pageRequest = new BenchmarkRequest(RequestMethod.GET, "/__admin/concurrent-scenarios/AdminBenchmark0?limit=100&state=STATE2");
+        pathParams = PathParams.single("scenario", "AdminBenchmark0");
+    }
+
+    @Benchmark
+    public ResponseDefinition listActiveScenarios() {
+        return listActiveScenarios.execute(null, listRequest, PathParams.empty());
+    }
+
+    @Benchmark
+    public ResponseDefinition getScenarioPage() {
+        return getScenario.execute(null, pageRequest, pathParams);
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * BenchmarkRequest.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.tomakehurst.wiremock.common.Urls;
+import com.github.tomakehurst.wiremock.http.Body;
+import com.github.tomakehurst.wiremock.http.ContentTypeHeader;
+import com.github.tomakehurst.wiremock.http.Cookie;
+import com.github.tomakehurst.wiremock.http.HttpHeader;
+import com.github.tomakehurst.wiremock.http.HttpHeaders;
+import com.github.tomakehurst.wiremock.http.QueryParameter;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+
+import wiremock.com.google.common.base.Optional;
+
+/**
+ * Immutable in memory request, built once per benchmark so that only matching is measured.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+class BenchmarkRequest implements Request {
+
+    private final String url;
+    private final RequestMethod method;
+    private final HttpHeaders headers;
+    private final Map<String, Cookie> cookies;
+    private final Map<String, QueryParameter> queryParameters;
+    private final byte[] body;
+    private final Collection<Part> parts;
+
+    /**
+     * @param method the request method
+     * @param url the request url, with its query string
+     * @param headers the request headers
+     * @param cookies the request cookies, by name
+     * @param body the request body
+     * @param parts the multipart parts, or null if not a multipart request
+     */
+    BenchmarkRequest(RequestMethod method, String url, HttpHeaders headers, Map<String, Cookie> cookies, String body, Collection<Part> parts) {
+        this.url = url;
+        this.method = method;
+        this.headers = headers;
+        this.cookies = cookies;
+        this.queryParameters = Urls.splitQuery(url.indexOf('?') < 0 ? null : url.substring(url.indexOf('?') + 1));
+        this.body = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        this.parts = parts;
+    }
+
+    /**
+     * @param method the request method
+     * @param url the request url, with its query string
+     */
+    BenchmarkRequest(RequestMethod method, String url) {
+        this(method, url, HttpHeaders.noHeaders(), Collections.emptyMap(), null, null);
+    }
+
+    @Override
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public String getAbsoluteUrl() {
+        return "http://localhost" + url;
+    }
+
+    @Override
+    public RequestMethod getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getClientIp() {
+        return "127.0.0.1";
+    }
+
+    @Override
+    public String getHeader(String key) {
+        HttpHeader header = header(key);
+        return header.isPresent() ? header.firstValue() : null;
+    }
+
+    @Override
+    public HttpHeader header(String key) {
+        return headers.getHeader(key);
+    }
+
+    @Override
+    public ContentTypeHeader contentTypeHeader() {
+        return headers.getContentTypeHeader();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public boolean containsHeader(String key) {
+        return header(key).isPresent();
+    }
+
+    @Override
+    public Set<String> getAllHeaderKeys() {
+        return headers.keys();
+    }
+
+    @Override
+    public Map<String, Cookie> getCookies() {
+        return cookies;
+    }
+
+    @Override
+    public QueryParameter queryParameter(String key) {
+        QueryParameter parameter = queryParameters.get(key);
+        return parameter == null ? QueryParameter.absent(key) : parameter;
+    }
+
+    @Override
+    public byte[] getBody() {
+        return body;
+    }
+
+    @Override
+    public String getBodyAsString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String getBodyAsBase64() {
+        return Base64.getEncoder().encodeToString(body);
+    }
+
+    @Override
+    public boolean isMultipart() {
+        return parts != null;
+    }
+
+    @Override
+    public Collection<Part> getParts() {
+        return parts;
+    }
+
+    @Override
+    public Part getPart(String name) {
+        if (parts != null) {
+            for (Part part : parts) {
+                if (part.getName().equals(name)) {
+                    return part;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isBrowserProxyRequest() {
+        return false;
+    }
+
+    @Override
+    public Optional<Request> getOriginalRequest() {
+        return Optional.absent();
+    }
+
+    /**
+     * A text multipart part
+     */
+    static class BenchmarkPart implements Part {
+
+        private final String name;
+        private final HttpHeaders headers;
+        private final Body body;
+
+        BenchmarkPart(String name, HttpHeaders headers, String body) {
+            this.name = name;
+            this.headers = headers;
+            this.body = new Body(body);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public HttpHeader getHeader(String name) {
+            return headers.getHeader(name);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public Body getBody() {
+            return body;
+        }
+    }
+}
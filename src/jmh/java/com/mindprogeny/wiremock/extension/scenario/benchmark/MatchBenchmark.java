@@ -0,0 +1,214 @@
+/*
+ * MatchBenchmark.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.benchmark;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.http.Cookie;
+import com.github.tomakehurst.wiremock.http.HttpHeader;
+import com.github.tomakehurst.wiremock.http.HttpHeaders;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.matching.MatchResult;
+import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioExtension;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
+
+import wiremock.com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Measures {@link ConcurrentScenarioExtension#match(Request, Parameters)} for each kind of request pattern and instance id
+ * source, with all threads hitting the same scenario instance or each request hitting one of many instances.
+ * <p>
+ * The stub keeps its instances in the Started state, so every request goes through the request pattern, the instance id
+ * extraction and the state transition.  Contention is set with the JMH thread count, e.g. {@code -t 1}, {@code -t 4} or
+ * {@code -t max}.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchBenchmark {
+
+    /**
+     * Number of distinct requests cycled through by each thread
+     */
+    private static final int REQUESTS = 1024;
+
+    /**
+     * Kind of request pattern of the stub
+     */
+    @Param({"url", "headers", "jsonBody", "xpathBody", "multipart"})
+    public String pattern;
+
+    /**
+     * Source of the scenario instance id
+     */
+    @Param({"none", "url", "queryParameter", "cookie"})
+    public String instanceSource;
+
+    /**
+     * Number of scenario instances the requests are spread over
+     */
+    @Param({"1", "1024"})
+    public int instances;
+
+    /**
+     * Scenario store implementation
+     */
+    @Param({"concurrent", "primitive"})
+    public String store;
+
+    private ConcurrentScenarioExtension extension;
+
+    private Parameters parameters;
+
+    private Request[] requests;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        extension = new ConcurrentScenarioExtension(ScenarioStore.forName(store));
+        parameters = buildParameters();
+        requests = new Request[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            requests[i] = buildRequest("i" + (i % instances));
+        }
+        if (!extension.match(requests[0], parameters).isExactMatch()) {
+            throw new IllegalStateException("Benchmark stub doesn't match its requests");
+        }
+    }
+
+    /**
+     * Per thread position in the requests
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        Request next(Request[] requests) {
+            return requests[next++ & (REQUESTS - 1)];
+        }
+    }
+
+    @Benchmark
+    public MatchResult match(Cursor cursor) {
+        return extension.match(cursor.next(requests), parameters);
+    }
+
+    /**
+     * Builds the parameters of a stub with the benchmarked request pattern and instance id source, staying in the Started
+     * state.
+     */
+    @SuppressWarnings("unchecked")
+    private Parameters buildParameters() throws IOException {
+        String request;
+        switch (pattern) {
+        case "url" :
+            request = "{\"method\":\"GET\",\"urlPathPattern\":\"/bench/[^/]+\"}";
+            break;
+        case "headers" :
+            request = "{\"method\":\"GET\",\"urlPathPattern\":\"/bench/[^/]+\","
+                    + "\"headers\":{\"X-Bench\":{\"equalTo\":\"yes\"},\"Accept\":{\"contains\":\"json\"}}}";
+            break;
+        case "jsonBody" :
+            request = "{\"method\":\"POST\",\"urlPathPattern\":\"/bench/[^/]+\","
+                    + "\"bodyPatterns\":[{\"matchesJsonPath\":\"$.items[?(@.id == 2)]\"}]}";
+            break;
+        case "xpathBody" :
+            request = "{\"method\":\"POST\",\"urlPathPattern\":\"/bench/[^/]+\","
+                    + "\"bodyPatterns\":[{\"matchesXPath\":\"/order/item[@id='2']\"}]}";
+            break;
+        case "multipart" :
+            request = "{\"method\":\"POST\",\"urlPathPattern\":\"/bench/[^/]+\","
+                    + "\"multipartPatterns\":[{\"name\":\"file\",\"matchingType\":\"ANY\",\"bodyPatterns\":[{\"contains\":\"bench\"}]}]}";
+            break;
+        default :
+            throw new IllegalArgumentException(pattern);
+        }
+        String source;
+        switch (instanceSource) {
+        case "none" :
+            source = "";
+            break;
+        case "url" :
+            source = ",\"scenarioInstanceIdentifier\":\"url\",\"scenarioInstanceIdentifierPattern\":\"/bench/([^/?]+).*\"";
+            break;
+        case "queryParameter" :
+            source = ",\"scenarioInstanceIdentifier\":\"queryParameter\",\"scenarioInstanceIdentifierPattern\":\"session\"";
+            break;
+        case "cookie" :
+            source = ",\"scenarioInstanceIdentifier\":\"cookie\",\"scenarioInstanceIdentifierPattern\":\"SESSION\"";
+            break;
+        default :
+            throw new IllegalArgumentException(instanceSource);
+        }
+        String json = "{\"scenarioName\":\"Benchmark\",\"requiredScenarioState\":\"Started\",\"newScenarioState\":\"Started\""
+                    + source + ",\"request\":" + request + "}";
+        return Parameters.from(new ObjectMapper().readValue(json, Map.class));
+    }
+
+    /**
+     * Builds a request matching the benchmarked stub, for a given instance.
+     */
+    private Request buildRequest(String instance) {
+        String url = "/bench/" + instance + "?session=" + instance;
+        Map<String, Cookie> cookies = Collections.singletonMap("SESSION", new Cookie(instance));
+        switch (pattern) {
+        case "url" :
+            return new BenchmarkRequest(RequestMethod.GET, url, HttpHeaders.noHeaders(), cookies, null, null);
+        case "headers" :
+            return new BenchmarkRequest(RequestMethod.GET, url, 
+                                        new HttpHeaders(new HttpHeader("X-Bench", "yes"), new HttpHeader("Accept", "application/json")), 
+                                        cookies, null, null);
+        case "jsonBody" :
+            return new BenchmarkRequest(RequestMethod.POST, url, new HttpHeaders(new HttpHeader("Content-Type", "application/json")),
+                                        cookies, "{\"items\":[{\"id\":1,\"name\":\"one\"},{\"id\":2,\"name\":\"two\"}]}", null);
+        case "xpathBody" :
+            return new BenchmarkRequest(RequestMethod.POST, url, new HttpHeaders(new HttpHeader("Content-Type", "application/xml")),
+                                        cookies, "<order><item id=\"1\">one</item><item id=\"2\">two</item></order>", null);
+        default :
+            return new BenchmarkRequest(RequestMethod.POST, url, new HttpHeaders(new HttpHeader("Content-Type", "multipart/form-data")),
+                                        cookies, null, 
+                                        Collections.singletonList(new BenchmarkRequest.BenchmarkPart("file", HttpHeaders.noHeaders(), "a bench part")));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * StoreBenchmark.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
+
+/**
+ * Measures the scenario store operations on the matching path, {@link ScenarioStore#getOrInitialize(int, String)} and
+ * {@link ScenarioStore#transition(int, String, int, int)}, for both store implementations, on one hot
+ * instance or spread over many.  Contention is set with the JMH thread count.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoreBenchmark {
+
+    /**
+     * Number of distinct instance ids cycled through by each thread
+     */
+    private static final int KEYS = 1 << 16;
+
+    /**
+     * Number of scenario instances the operations are spread over
+     */
+    @Param({"1", "65536"})
+    public int instances;
+
+    /**
+     * Scenario store implementation
+     */
+    @Param({"concurrent", "primitive"})
+    public String store;
+
+    private ScenarioStore scenarios;
+
+    private int scenarioId;
+
+    private int otherState;
+
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scenarios = ScenarioStore.forName(store);
+        scenarioId = ScenarioStore.SCENARIO_NAMES.intern("StoreBenchmark");
+        otherState = ScenarioStore.STATE_NAMES.intern("StoreBenchmarkOther");
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "instance" + (i % instances);
+            scenarios.getOrInitialize(scenarioId, keys[i]);
+        }
+    }
+
+    /**
+     * Per thread position in the instance ids
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        String next(String[] keys) {
+            return keys[next++ & (KEYS - 1)];
+        }
+    }
+
+    @Benchmark
+    public int getOrInitialize(Cursor cursor) {
+        return scenarios.getOrInitialize(scenarioId, cursor.next(keys));
+    }
+
+    @Benchmark
+    public boolean transition(Cursor cursor) {
+        return scenarios.transition(scenarioId, cursor.next(keys), ScenarioStore.STARTED, ScenarioStore.STARTED);
+    }
+
+    @Benchmark
+    public boolean failedTransition(Cursor cursor) {
+        return scenarios.transition(scenarioId, cursor.next(keys), otherState, ScenarioStore.STARTED);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * CompiledStub.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario;
+
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.mindprogeny.wiremock.extension.scenario.instance.InstanceIdExtractor;
+import com.mindprogeny.wiremock.extension.scenario.store.SymbolTable;
+
+/**
+ * A concurrent scenario stub's parameters, parsed once and kept for the lifetime of the stub.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+class CompiledStub {
+
+    /**
+     * The request pattern the stub applies to
+     */
+    final RequestPattern requestPattern;
+
+    /**
+     * The interned scenario name, or {@link SymbolTable#UNKNOWN} if the stub isn't part of a scenario
+     */
+    final int scenarioId;
+
+    /**
+     * The extractor of the scenario instance id
+     */
+    final InstanceIdExtractor instanceIdExtractor;
+
+    /**
+     * The interned state the scenario instance must be in for the stub to match, or {@link SymbolTable#UNKNOWN} if any
+     */
+    final int requiredState;
+
+    /**
+     * The interned state the scenario instance transitions to when the stub matches, or {@link SymbolTable#UNKNOWN} if none
+     */
+    final int newState;
+
+    /**
+     * Identifier of the stub in transition traces, its "stubId" parameter or else its method and url
+     */
+    final String stubId;
+
+    /**
+     * Pre-filter of the requests on the literal parts of the request pattern
+     */
+    final StubFilter filter;
+
+    /**
+     * Pre-filter of the requests on the headers, query parameters and cookies of the request pattern, cheapest first
+     */
+    final PredicateChain predicates;
+
+    /**
+     * @param requestPattern the request pattern the stub applies to
+     * @param scenarioId the interned scenario name
+     * @param instanceIdExtractor the extractor of the scenario instance id
+     * @param requiredState the state the scenario instance must be in
+     * @param newState the state the scenario instance transitions to
+     * @param stubId the identifier of the stub in transition traces
+     * @param filter the pre-filter of the requests
+     * @param predicates the pre-filter of the requests on headers, query parameters and cookies
+     */
+    CompiledStub(RequestPattern requestPattern, int scenarioId, InstanceIdExtractor instanceIdExtractor,
+                 int requiredState, int newState, String stubId, StubFilter filter, PredicateChain predicates) {
+        this.requestPattern = requestPattern;
+        this.scenarioId = scenarioId;
+        this.instanceIdExtractor = instanceIdExtractor;
+        this.requiredState = requiredState;
+        this.newState = newState;
+        this.stubId = stubId;
+        this.filter = filter;
+        this.predicates = predicates;
+    }
+}
@@ -19,20 +19,15 @@
 
 package com.mindprogeny.wiremock.extension.scenario;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
 
-import com.github.tomakehurst.wiremock.client.BasicCredentials;
 import com.github.tomakehurst.wiremock.extension.Parameters;
-import com.github.tomakehurst.wiremock.http.Cookie;
-import com.github.tomakehurst.wiremock.http.QueryParameter;
 import com.github.tomakehurst.wiremock.http.Request;
 import com.github.tomakehurst.wiremock.http.RequestMethod;
 import com.github.tomakehurst.wiremock.matching.BinaryEqualToPattern;
@@ -43,10 +38,16 @@ import com.github.tomakehurst.wiremock.matching.MultipartValuePattern;
 import com.github.tomakehurst.wiremock.matching.RequestMatcherExtension;
 import com.github.tomakehurst.wiremock.matching.RequestPattern;
 import com.github.tomakehurst.wiremock.matching.StringValuePattern;
-import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioStubDefinition.MultipartDefinition;
+import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioStubDefinition.RequestDefinition;
+import com.mindprogeny.wiremock.extension.scenario.instance.InstanceIdExtractor;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioMetrics;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
+import com.mindprogeny.wiremock.extension.scenario.store.SymbolTable;
+import com.mindprogeny.wiremock.extension.scenario.store.TransitionTrace;
 
-import wiremock.com.fasterxml.jackson.core.JsonProcessingException;
-import wiremock.com.fasterxml.jackson.databind.ObjectMapper;
+import wiremock.com.google.common.cache.Cache;
+import wiremock.com.google.common.cache.CacheBuilder;
 import wiremock.org.custommonkey.xmlunit.exceptions.ConfigurationException;
 
 /**
@@ -56,120 +57,210 @@ import wiremock.org.custommonkey.xmlunit.exceptions.ConfigurationException;
  */
 public class ConcurrentScenarioExtension extends RequestMatcherExtension {
     
+    /**
+     * Default instance identifier for uni-thread scenarios
+     */
+    private static final String DEFAULT_INSTANCE_ID = "$ID";
+
+    /**
+     * Maximum number of compiled stubs kept in memory
+     */
+    private static final int MAX_COMPILED_STUBS = 4096;
+
+    /**
+     * Compiled stubs of each store, weakly keyed by the identity of the store they were compiled against, as compiling
+     * a stub configures its scenario's limits, time to live and tracing in the store
+     */
+    private static final Cache<ScenarioStore, Cache<Parameters, CompiledStub>> COMPILED_STUBS = CacheBuilder.newBuilder()
+                                                                                                            .weakKeys()
+                                                                                                            .build();
+
     /**
      * The Scenario repository
      */
-    private static final ConcurrentHashMap<String,ConcurrentHashMap<String,AtomicReference<String>>> SCENARIOS = new ConcurrentHashMap<>();
-	
+    private final ScenarioStore store;
+
     /**
-     * Default instance identifier for uni-thread scenarios
+     * Compiled stubs, weakly keyed by the identity of the stub parameters they were built from
      */
-    private static final String DEFAULT_INSTANCE_ID = "$ID";
+    private final Cache<Parameters, CompiledStub> compiledStubs;
 
     /**
-     * Object Mapper to serialize maps
+     * Creates the extension on top of the default scenario store, shared with the {@link ConcurrentScenarioManager}
+     * built without an explicit store.
      */
-    private static final ObjectMapper jsonMapper = new ObjectMapper();
+    public ConcurrentScenarioExtension() {
+        this(ScenarioStore.defaultStore());
+    }
+
+    /**
+     * Creates the extension on top of a specific scenario store, which should also be given to the server's
+     * {@link ConcurrentScenarioManager}.
+     * 
+     * @param store the scenario repository
+     */
+    public ConcurrentScenarioExtension(ScenarioStore store) {
+        this.store = store;
+        this.compiledStubs = compiledStubsOf(store);
+    }
 
 	/**
 	 * @see com.github.tomakehurst.wiremock.matching.RequestMatcherExtension#match(com.github.tomakehurst.wiremock.http.Request, com.github.tomakehurst.wiremock.extension.Parameters)
 	 */
 	@Override
-    @SuppressWarnings("unchecked")
 	public MatchResult match(Request request, Parameters parameters) {
-		// First check if the stub itself is matched by the request pattern
-		
-		Map<String,Object> requestParameters = (Map<String, Object>) parameters.get("request");
-
-        BasicCredentials basicCredentials = null;
-        Map<String,String> basicCredentialsMap = (Map<String, String>) requestParameters.get("basicAuthCredentials");
-        if (basicCredentialsMap != null) {
-            basicCredentials = new BasicCredentials(basicCredentialsMap.get("username"), 
-                                                    basicCredentialsMap.get("password"));
+        CompiledStub stub = getCompiledStub(parameters);
+
+        if (stub.scenarioId == SymbolTable.UNKNOWN) {
+            return stub.filter.accepts(request) && stub.predicates.accepts(request) 
+                 ? stub.requestPattern.match(request) 
+                 : new DeferredMatchResult(stub, request);
         }
+        long start = System.nanoTime();
+        ScenarioMetrics.Counters metrics = store.getMetrics().forScenario(stub.scenarioId);
+        ScenarioStore requestStore = store.forRequest(request);
 
-        MatchResult matchResult = new RequestPattern( 
-        		(String)requestParameters.get("url")
-              , (String)requestParameters.get("urlPattern")
-              , (String)requestParameters.get("urlPath")
-              , (String)requestParameters.get("urlPathPattern")
-              , RequestMethod.fromString((String)requestParameters.get("method"))
-              , getMultiValuePatternMap((Map<String,Map<String,Object>>)requestParameters.get("headers"))
-              , getMultiValuePatternMap((Map<String,Map<String,Object>>)requestParameters.get("queryParameters"))
-              , getStringValuePatternMap((Map<String,Map<String,Object>>)requestParameters.get("cookies"))
-              , basicCredentials
-              , getContentPatternList((Collection<Map<String,Object>>)requestParameters.get("bodyPatterns"))
-              , null
-              , getMultipartPatternList((Collection<Map<String,Object>>)requestParameters.get("multipartPatterns"))).match(request);
-        
-        String scenarioName = (String)parameters.get("scenarioName");
-        if (scenarioName == null || !matchResult.isExactMatch()) {
-            return matchResult;
+        // Reject requests of other methods or urls before evaluating the request pattern
+        if (!stub.filter.accepts(request)) {
+            metrics.patternMisses.increment();
+            metrics.latency.record(System.nanoTime() - start);
+            return new DeferredMatchResult(stub, request);
         }
 
-        String instanceIdentifier = (String)parameters.get("scenarioInstanceIdentifier");
-        String instanceIdentifierPattern = (String)parameters.get("scenarioInstanceIdentifierPattern");
-        String scenarioInstance = getScenarioInstance(instanceIdentifier, instanceIdentifierPattern, request);
+        String scenarioInstance = stub.instanceIdExtractor.extract(request);
         if (scenarioInstance == null) {
         	scenarioInstance = DEFAULT_INSTANCE_ID;
         }
-        
-        AtomicReference<String> state = getOrInitialize(scenarioName, scenarioInstance);
-        
-        String requiredState = (String)parameters.get("requiredScenarioState");
-        if (requiredState != null && !requiredState.equals(state.get())) {
-            return MatchResult.noMatch();
+
+        // Then reject requests for scenario instances not in the required state, also before evaluating the request pattern,
+        // unless the state is held by another node, which checks it anyway when transitioning
+        if (stub.requiredState != SymbolTable.UNKNOWN && requestStore.isLocal(stub.scenarioId, scenarioInstance)) {
+            int state = requestStore.getState(stub.scenarioId, scenarioInstance);
+            if (state != stub.requiredState && (state != SymbolTable.UNKNOWN || stub.requiredState != ScenarioStore.STARTED)) {
+                metrics.stateMisses.increment();
+                metrics.latency.record(System.nanoTime() - start);
+                return new DeferredMatchResult(stub, request);
+            }
         }
-        String newState = (String)parameters.get("newScenarioState");
-        if (newState != null) {
-        	state.set(newState);
+
+        // Then reject requests failing a header, query parameter or cookie, cheapest first
+        if (!stub.predicates.accepts(request)) {
+            metrics.patternMisses.increment();
+            metrics.latency.record(System.nanoTime() - start);
+            return new DeferredMatchResult(stub, request);
         }
+
+		// Then check if the stub itself is matched by the request pattern, its body and multipart patterns last
+        MatchResult matchResult = stub.requestPattern.match(request);
         
+        if (!matchResult.isExactMatch()) {
+            metrics.patternMisses.increment();
+            metrics.latency.record(System.nanoTime() - start);
+            return matchResult;
+        }
+
+        // When tracing a stub matching any state, the state it transitions from is read beforehand, on a best effort basis
+        TransitionTrace trace = stub.newState == SymbolTable.UNKNOWN ? null : metrics.getTrace();
+        int fromState = stub.requiredState;
+        if (trace != null && fromState == SymbolTable.UNKNOWN) {
+            fromState = requestStore.getState(stub.scenarioId, scenarioInstance);
+            if (fromState == SymbolTable.UNKNOWN) {
+                fromState = ScenarioStore.STARTED;
+            }
+        }
+
+        if (!requestStore.transition(stub.scenarioId, scenarioInstance, stub.requiredState, stub.newState)) {
+            metrics.stateMisses.increment();
+            metrics.latency.record(System.nanoTime() - start);
+            return MatchResult.noMatch();
+        }
         
+        metrics.matches.increment();
+        if (stub.newState != SymbolTable.UNKNOWN) {
+            metrics.transitions.increment();
+            if (trace != null) {
+                trace.record(scenarioInstance, fromState, stub.newState, stub.stubId);
+            }
+        }
+        metrics.latency.record(System.nanoTime() - start);
         return MatchResult.exactMatch();
 	}
 
-	/**
-     * Gets the instance id from the request, based on the configured source of an instance if and the pattern to search for.
+    /**
+     * Gets the compiled form of the stub owning the given parameters, building and caching it on first use.
      * <p>
-     * if the source is a query parameter or a cookie, the pattern is expected to be the exact match of the parameter or cookie name.
-     *  
-     * @param instanceIdentifier source the instance id should be looked for
-     * @param instanceIdentifierPattern the pattern to search for
-     * @param request the request to search in
-     * @return the found instance id, or the default instance if no source was given.
+     * Wiremock keeps the same {@link Parameters} instance for the whole lifetime of a stub mapping, and creates a new one
+     * whenever the stub is edited or reloaded, so the cache is keyed by identity and entries of discarded stubs are
+     * collected together with them.
+     * 
+     * @param parameters the stub's custom matcher parameters
+     * @return the compiled stub
      */
-    private String getScenarioInstance(String instanceIdentifier, String instanceIdentifierPattern, Request request) {
-    	if (instanceIdentifier == null) {
-    		return null;
-    	}
-        switch(instanceIdentifier) {
-        case "url" :
-        	if (instanceIdentifierPattern == null) {
-        		break;
-        	}
-            Pattern urlMatchPattern = Pattern.compile(instanceIdentifierPattern);
-            Matcher matcher = urlMatchPattern.matcher(request.getUrl());
-            if (matcher.matches()) {
-                return matcher.group(1);
-            }
-            break;
-        case "queryParameter" : 
-            QueryParameter parameter = request.queryParameter(instanceIdentifierPattern);
-            if (parameter != null) {
-                return parameter.firstValue();
-            }
-            break;
-        case "cookie" :
-            Cookie cookie = request.getCookies().get(instanceIdentifierPattern);
-            if (cookie != null) {
-                return cookie.getValue();
-            }
-            break;
-        default :
-            throw new ConfigurationException("Unknown instance identifier source : " + instanceIdentifier);
+    private CompiledStub getCompiledStub(Parameters parameters) {
+        CompiledStub stub = compiledStubs.getIfPresent(parameters);
+        if (stub == null) {
+            stub = compile(parameters);
+            compiledStubs.put(parameters, stub);
+        }
+        return stub;
+    }
+
+    /**
+     * Compiles the parameters of a stub, deserializing them into its definition and applying its scenario's limits.
+     * 
+     * @param parameters the stub's custom matcher parameters
+     * @return the compiled stub
+     * @throws ConfigurationException if the parameters don't make a valid {@link ConcurrentScenarioStubDefinition}
+     */
+    private CompiledStub compile(Parameters parameters) {
+        ConcurrentScenarioStubDefinition definition = ConcurrentScenarioStubDefinition.from(parameters);
+        String scenarioName = definition.getScenarioName();
+        InstanceIdExtractor instanceIdExtractor = scenarioName == null 
+                                                ? InstanceIdExtractor.NONE
+                                                : InstanceIdExtractor.forSource(definition.getScenarioInstanceIdentifier(), 
+                                                                                definition.getScenarioInstanceIdentifierPattern());
+        int scenarioId = scenarioName == null ? SymbolTable.UNKNOWN : ScenarioStore.SCENARIO_NAMES.intern(scenarioName);
+        if (scenarioId != SymbolTable.UNKNOWN && (definition.getScenarioTimeToLive() != null || definition.getScenarioIdleTimeout() != null)) {
+            store.expireAfter(scenarioId, millis(definition.getScenarioTimeToLive()), millis(definition.getScenarioIdleTimeout()));
+        }
+        if (scenarioId != SymbolTable.UNKNOWN && definition.getScenarioMaxInstances() != null) {
+            store.limitInstances(scenarioId, definition.getScenarioMaxInstances(), definition.getScenarioEvictionPolicy());
+        }
+        if (scenarioId != SymbolTable.UNKNOWN && definition.getScenarioTraceCapacity() != null) {
+            store.getMetrics().traceTransitions(scenarioId, definition.getScenarioTraceCapacity());
         }
-        return null;
+        RequestPattern requestPattern = buildRequestPattern(definition.getRequest());
+        String stubId = definition.getStubId();
+        return new CompiledStub(requestPattern
+                              , scenarioId
+                              , instanceIdExtractor
+                              , internState(definition.getRequiredScenarioState())
+                              , internState(definition.getNewScenarioState())
+                              , stubId != null ? stubId : requestPattern.getMethod() + " " + requestPattern.getUrlMatcher().getExpected()
+                              , new StubFilter(definition.getRequest())
+                              , new PredicateChain(requestPattern));
+    }
+
+    /**
+     * Builds the request pattern described by the request definition of a stub.
+     * 
+     * @param request the stub's request definition
+     * @return the request pattern to apply to incoming requests
+     */
+    private RequestPattern buildRequestPattern(RequestDefinition request) {
+        return new RequestPattern( 
+        		request.getUrl()
+              , request.getUrlPattern()
+              , request.getUrlPath()
+              , request.getUrlPathPattern()
+              , RequestMethod.fromString(request.getMethod())
+              , getMultiValuePatternMap(request.getHeaders())
+              , getMultiValuePatternMap(request.getQueryParameters())
+              , getStringValuePatternMap(request.getCookies())
+              , request.getBasicAuthCredentials()
+              , getContentPatternList(request.getBodyPatterns())
+              , null
+              , getMultipartPatternList(request.getMultipartPatterns()));
     }
 
 	/**
@@ -237,7 +328,8 @@ public class ConcurrentScenarioExtension extends RequestMatcherExtension {
         patternParameters.forEach(e -> {
         	Object binaryValue = e.get("binaryEqualTo");
         	if (binaryValue != null) {
-        		result.add(new BinaryEqualToPattern(binaryValue.toString()));
+        		String base64 = binaryValue.toString();
+        		result.add(PatternPool.intern(Arrays.asList("binaryEqualTo", base64), () -> new BinaryEqualToPattern(base64)));
         	} else {
                 result.add(StringValuePatternBuilder.build(e));
         	}
@@ -246,21 +338,26 @@ public class ConcurrentScenarioExtension extends RequestMatcherExtension {
         return result;
     }
     
-    @SuppressWarnings("unchecked")
-	private List<MultipartValuePattern> getMultipartPatternList(Collection<Map<String,Object>> patternParameters) {
-        if (patternParameters == null || patternParameters.size() ==0) {
+    /**
+     * Transforms a list of multipart definitions to a list of multipart value pattern rules.
+     * 
+     * @param multipartDefinitions list of multipart definitions
+     * @return list of multipart value pattern rules
+     */
+	private List<MultipartValuePattern> getMultipartPatternList(List<MultipartDefinition> multipartDefinitions) {
+        if (multipartDefinitions.isEmpty()) {
             return null;
         }
         
         List<MultipartValuePattern> result = new LinkedList<>();
 
-        patternParameters.forEach(e -> {
+        multipartDefinitions.forEach(e -> {
         	result.add(
         			new MultipartValuePattern(
-        					(String)e.get("name")
-        				  , MultipartValuePattern.MatchingType.valueOf((String)e.get("matchingType"))
-        				  , getMultiValuePatternMap((Map<String,Map<String,Object>>)e.get("headers"))
-        				  , getContentPatternList((Collection<Map<String,Object>>)e.get("bodyPatterns"))));
+        					e.getName()
+        				  , e.getMatchingType()
+        				  , getMultiValuePatternMap(e.getHeaders())
+        				  , getContentPatternList(e.getBodyPatterns())));
         });
         
         return result;
@@ -268,81 +365,98 @@ public class ConcurrentScenarioExtension extends RequestMatcherExtension {
     
     
     /**
-     * Gets the scenario state of a specific instance.  If the scenario and/or instance are still not present in the repository
-     * (no scenario stubs have been accessed yet, since the last reset) the instance scenario is initialized.
+     * @param millis an optional duration in milliseconds
+     * @return the duration, or 0 if not set
+     */
+    private static long millis(Long millis) {
+        return millis == null ? 0 : millis;
+    }
+
+    /**
+     * Interns a scenario state name.
      * 
-     * @param scenarioName Name of the scenario
-     * @param scenarioInstance The instance id
-     * @return The instance Scenario State
+     * @param state the state name, or null
+     * @return the state id, or {@link SymbolTable#UNKNOWN} if no state name was given
      */
-    public static AtomicReference<String> getOrInitialize(String scenarioName, String scenarioInstance) {
-        ConcurrentHashMap<String,AtomicReference<String>> instances = SCENARIOS.computeIfAbsent(scenarioName, k -> new ConcurrentHashMap<>());
-        AtomicReference<String> state = instances.computeIfAbsent(scenarioInstance,k -> new AtomicReference<>(Scenario.STARTED));
-        return state;
+    private static int internState(String state) {
+        return state == null ? SymbolTable.UNKNOWN : ScenarioStore.STATE_NAMES.intern(state);
     }
 
-	/**
-	 * Returns all triggered scenarios and currently held in memory, as a json object.
-	 * 
-	 * @return A string representing the json object with all inmemory scenario instances and states
-	 * @throws JsonProcessingException // shouldn't happen
-	 */
-	public static String serializeScenarios() throws JsonProcessingException {
-        return jsonMapper.writeValueAsString(SCENARIOS);
-	}
+    /**
+     * @return the scenario repository this extension matches against
+     */
+    public ScenarioStore getStore() {
+        return store;
+    }
 
-	/**
-	 * Returns all triggered instances of a particular scenario
-	 * 
-	 * @param scenario name
-	 * @return JsonProcessingException // shouldn't happen
-	 */
-	public static String serializeScenarioInstances(String scenario) throws JsonProcessingException {
-        return jsonMapper.writeValueAsString(SCENARIOS.get(scenario));
-	}
+    /**
+     * Result of a request rejected before its request pattern was evaluated, only evaluating it if Wiremock asks for the
+     * distance between the request and the stub (to report near misses), the distance being the one the full match would
+     * have given.
+     */
+    private static final class DeferredMatchResult extends MatchResult {
 
-	/**
-	 * Deletes all scenarios and their instances
-	 */
-	public static void clearAll() {
-		SCENARIOS.clear();
-	}
+        private final CompiledStub stub;
 
-	/**
-	 * Deletes a specific scenario and all its instances
-	 * 
-	 * @param scenario the name of the scenario to delete
-	 * @return true if a scenario was deleted or false if no scenario with the provided name existed.
-	 */
-	public static boolean clearScenario(String scenario) {
-		return SCENARIOS.remove(scenario) != null;
-	}
+        private final Request request;
 
-	/**
-	 * Deletes a specific scenario instance
-	 * 
-	 * @param scenario the name of the scenario to delete
-	 * @param instance the instance id
-	 * @return true if a scenario instance was deleted or false if no scenario instance with the provided id for the requested scenario existed.
-	 */
-	public static boolean clearInstance(String scenario, String instance) {
-		ConcurrentHashMap<String, AtomicReference<String>> scenarioInstances = SCENARIOS.get(scenario);
-		if (scenarioInstances != null) {
-			return scenarioInstances.remove(instance) != null;
-		}
-		return false;
-	}
+        /**
+         * The distance, or a negative value if not worked out yet
+         */
+        private double distance = -1;
+
+        DeferredMatchResult(CompiledStub stub, Request request) {
+            this.stub = stub;
+            this.request = request;
+        }
+
+        @Override
+        public boolean isExactMatch() {
+            return false;
+        }
+
+        /**
+         * @return the distance of the request pattern match, or the maximum distance if the request pattern matched but
+         *         the scenario instance was not in the required state
+         */
+        @Override
+        public double getDistance() {
+            if (distance < 0) {
+                MatchResult matchResult = stub.requestPattern.match(request);
+                distance = matchResult.isExactMatch() ? MatchResult.noMatch().getDistance() : matchResult.getDistance();
+            }
+            return distance;
+        }
+    }
+
+    /**
+     * Gets the cache of the stubs compiled against a store, creating it on first use.
+     * 
+     * @param store the scenario store
+     * @return the compiled stubs of the store
+     */
+    private static Cache<Parameters, CompiledStub> compiledStubsOf(ScenarioStore store) {
+        try {
+            return COMPILED_STUBS.get(store, () -> CacheBuilder.newBuilder()
+                                                               .weakKeys()
+                                                               .maximumSize(MAX_COMPILED_STUBS)
+                                                               .<Parameters, CompiledStub>build());
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
 
 	/**
-	 * Sets the state of a specific instance of a scenario. If the scenario doesn't exist or the specific instance
-	 * doesn't exist, they will be created (even if no stub is using it).
+	 * Discards the stubs compiled against a store, forcing them to be rebuilt, and the store to be configured again, on
+	 * the next match.
 	 * 
-	 * @param scenario the scenario name
-	 * @param instance the instance id
-	 * @param state the state to set the scenario instance to.
+	 * @param store the scenario store
 	 */
-	public static void setScenarioState(String scenario, String instance, String state) {
-		getOrInitialize(scenario, instance).set(state);
+	public static void clearCompiledStubs(ScenarioStore store) {
+		Cache<Parameters, CompiledStub> compiledStubs = COMPILED_STUBS.getIfPresent(store);
+		if (compiledStubs != null) {
+		    compiledStubs.invalidateAll();
+		}
 	}
 
 }
@@ -22,13 +22,22 @@ import com.github.tomakehurst.wiremock.admin.Router;
 import com.github.tomakehurst.wiremock.extension.AdminApiExtension;
 import com.github.tomakehurst.wiremock.http.RequestMethod;
 import com.mindprogeny.wiremock.extension.scenario.admin.task.ClearScenarios;
+import com.mindprogeny.wiremock.extension.scenario.admin.task.ClusterNodeTask;
+import com.mindprogeny.wiremock.extension.scenario.admin.task.CountScenarioInstances;
 import com.mindprogeny.wiremock.extension.scenario.admin.task.DeleteScenario;
 import com.mindprogeny.wiremock.extension.scenario.admin.task.DeleteScenarioInstance;
 import com.mindprogeny.wiremock.extension.scenario.admin.task.DeleteScenariosWithBody;
+import com.mindprogeny.wiremock.extension.scenario.admin.task.GetEvictionCounters;
+import com.mindprogeny.wiremock.extension.scenario.admin.task.GetPrometheusMetrics;
 import com.mindprogeny.wiremock.extension.scenario.admin.task.GetScenario;
+import com.mindprogeny.wiremock.extension.scenario.admin.task.GetScenarioMetrics;
+import com.mindprogeny.wiremock.extension.scenario.admin.task.GetTransitionTrace;
 import com.mindprogeny.wiremock.extension.scenario.admin.task.ListActiveScenarios;
+import com.mindprogeny.wiremock.extension.scenario.admin.task.LoadScenarioStates;
 import com.mindprogeny.wiremock.extension.scenario.admin.task.SetScenarioSessionState;
 import com.mindprogeny.wiremock.extension.scenario.admin.task.SetScenarioSessionStateWithBody;
+import com.mindprogeny.wiremock.extension.scenario.store.ClusteredScenarioStore;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
 
 /**
  * Admin Extension providing api endpoints to manage the scenario repository.
@@ -39,6 +48,29 @@ import com.mindprogeny.wiremock.extension.scenario.admin.task.SetScenarioSession
  */
 public class ConcurrentScenarioManager implements AdminApiExtension {
 
+    /**
+     * The Scenario repository
+     */
+    private final ScenarioStore store;
+
+    /**
+     * Creates the admin extension on top of the default scenario store, shared with the {@link ConcurrentScenarioExtension}
+     * built without an explicit store.
+     */
+    public ConcurrentScenarioManager() {
+        this(ScenarioStore.defaultStore());
+    }
+
+    /**
+     * Creates the admin extension on top of a specific scenario store, which should be the one given to the server's
+     * {@link ConcurrentScenarioExtension}.
+     * 
+     * @param store the scenario repository
+     */
+    public ConcurrentScenarioManager(ScenarioStore store) {
+        this.store = store;
+    }
+
     /**
      * @see com.github.tomakehurst.wiremock.extension.Extension#getName()
      */
@@ -53,14 +85,28 @@ public class ConcurrentScenarioManager implements AdminApiExtension {
     @Override
     public void contributeAdminApiRoutes(Router router) {
         
-        router.add(RequestMethod.GET, "/concurrent-scenarios", ListActiveScenarios.class);
-        router.add(RequestMethod.GET, "/concurrent-scenarios/{scenario}", GetScenario.class);
-        router.add(RequestMethod.DELETE, "/concurrent-scenarios", DeleteScenariosWithBody.class);
-        router.add(RequestMethod.DELETE, "/concurrent-scenarios/all", ClearScenarios.class);
-        router.add(RequestMethod.DELETE, "/concurrent-scenarios/{scenario}", DeleteScenario.class);
-        router.add(RequestMethod.DELETE, "/concurrent-scenarios/{scenario}/{instance}", DeleteScenarioInstance.class);
-        router.add(RequestMethod.PUT, "/concurrent-scenarios/{scenario}/{instance}/{state}", SetScenarioSessionState.class);
-        router.add(RequestMethod.PUT, "/concurrent-scenarios", SetScenarioSessionStateWithBody.class);
+        router.add(RequestMethod.GET, "/concurrent-scenarios", new ListActiveScenarios(store));
+        router.add(RequestMethod.GET, "/concurrent-scenarios/evictions", new GetEvictionCounters(store));
+        router.add(RequestMethod.GET, "/concurrent-scenarios/metrics", new GetScenarioMetrics(store));
+        router.add(RequestMethod.GET, "/concurrent-scenarios/prometheus", new GetPrometheusMetrics(store));
+        router.add(RequestMethod.GET, "/concurrent-scenarios/{scenario}", new GetScenario(store));
+        router.add(RequestMethod.GET, "/concurrent-scenarios/{scenario}/trace", new GetTransitionTrace(store));
+        router.add(RequestMethod.GET, "/concurrent-scenarios/{scenario}/count", new CountScenarioInstances(store));
+        router.add(RequestMethod.DELETE, "/concurrent-scenarios", new DeleteScenariosWithBody(store));
+        router.add(RequestMethod.DELETE, "/concurrent-scenarios/all", new ClearScenarios(store));
+        router.add(RequestMethod.DELETE, "/concurrent-scenarios/{scenario}", new DeleteScenario(store));
+        router.add(RequestMethod.DELETE, "/concurrent-scenarios/{scenario}/{instance}", new DeleteScenarioInstance(store));
+        router.add(RequestMethod.PUT, "/concurrent-scenarios/{scenario}/{instance}/{state}", new SetScenarioSessionState(store));
+        router.add(RequestMethod.PUT, "/concurrent-scenarios", new SetScenarioSessionStateWithBody(store));
+        router.add(RequestMethod.POST, "/concurrent-scenarios/bulk", new LoadScenarioStates(store));
+
+        router.add(RequestMethod.POST, ClusteredScenarioStore.ROUTE + "/transition", new ClusterNodeTask.Transition(store));
+        router.add(RequestMethod.GET, ClusteredScenarioStore.ROUTE + "/state", new ClusterNodeTask.GetState(store));
+        router.add(RequestMethod.PUT, ClusteredScenarioStore.ROUTE + "/state", new ClusterNodeTask.SetState(store));
+        router.add(RequestMethod.DELETE, ClusteredScenarioStore.ROUTE + "/instance", new ClusterNodeTask.ClearInstance(store));
+        router.add(RequestMethod.DELETE, ClusteredScenarioStore.ROUTE + "/scenario", new ClusterNodeTask.ClearScenario(store));
+        router.add(RequestMethod.DELETE, ClusteredScenarioStore.ROUTE + "/all", new ClusterNodeTask.ClearAll(store));
+        router.add(RequestMethod.GET, ClusteredScenarioStore.ROUTE + "/count", new ClusterNodeTask.CountInstances(store));
 
     }
 
@@ -0,0 +1,399 @@
+/*
+ * ConcurrentScenarioStubDefinition.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.github.tomakehurst.wiremock.client.BasicCredentials;
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.matching.MultipartValuePattern;
+import com.mindprogeny.wiremock.extension.scenario.store.EvictionPolicy;
+
+import wiremock.com.fasterxml.jackson.annotation.JsonCreator;
+import wiremock.com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import wiremock.com.fasterxml.jackson.annotation.JsonProperty;
+import wiremock.org.custommonkey.xmlunit.exceptions.ConfigurationException;
+
+/**
+ * The custom matcher parameters of a concurrent scenario stub, deserialized by Jackson and validated once, so the stub
+ * can be compiled without digging through untyped maps.
+ * <p>
+ * Matching rules (the values of headers, query parameters, cookies and body patterns) are kept as the parameter maps
+ * {@link StringValuePatternBuilder} builds patterns from.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public final class ConcurrentScenarioStubDefinition {
+
+    /**
+     * Request pattern of the stub
+     */
+    private final RequestDefinition request;
+
+    /**
+     * Scenario name, or null if the stub isn't part of a scenario
+     */
+    private final String scenarioName;
+
+    /**
+     * Source of the scenario instance id ("url", "queryParameter" or "cookie"), or null for a single instance
+     */
+    private final String scenarioInstanceIdentifier;
+
+    /**
+     * Url regular expression, query parameter or cookie name holding the instance id
+     */
+    private final String scenarioInstanceIdentifierPattern;
+
+    /**
+     * State the scenario instance must be in, or null if any
+     */
+    private final String requiredScenarioState;
+
+    /**
+     * State the scenario instance transitions to, or null if none
+     */
+    private final String newScenarioState;
+
+    /**
+     * Time to live of the scenario instances in milliseconds, or null if not set
+     */
+    private final Long scenarioTimeToLive;
+
+    /**
+     * Idle timeout of the scenario instances in milliseconds, or null if not set
+     */
+    private final Long scenarioIdleTimeout;
+
+    /**
+     * Maximum number of instances of the scenario, or null if not set
+     */
+    private final Integer scenarioMaxInstances;
+
+    /**
+     * Policy applied when the scenario is full
+     */
+    private final EvictionPolicy scenarioEvictionPolicy;
+
+    /**
+     * Number of state transitions of the scenario to trace, or null if not set
+     */
+    private final Integer scenarioTraceCapacity;
+
+    /**
+     * Identifier of the stub in transition traces, or null to use its method and url
+     */
+    private final String stubId;
+
+    @JsonCreator
+    public ConcurrentScenarioStubDefinition(@JsonProperty("request") RequestDefinition request,
+                                            @JsonProperty("scenarioName") String scenarioName,
+                                            @JsonProperty("scenarioInstanceIdentifier") String scenarioInstanceIdentifier,
+                                            @JsonProperty("scenarioInstanceIdentifierPattern") String scenarioInstanceIdentifierPattern,
+                                            @JsonProperty("requiredScenarioState") String requiredScenarioState,
+                                            @JsonProperty("newScenarioState") String newScenarioState,
+                                            @JsonProperty("scenarioTimeToLive") Long scenarioTimeToLive,
+                                            @JsonProperty("scenarioIdleTimeout") Long scenarioIdleTimeout,
+                                            @JsonProperty("scenarioMaxInstances") Integer scenarioMaxInstances,
+                                            @JsonProperty("scenarioEvictionPolicy") String scenarioEvictionPolicy,
+                                            @JsonProperty("scenarioTraceCapacity") Integer scenarioTraceCapacity,
+                                            @JsonProperty("stubId") String stubId) {
+        this.request = request;
+        this.scenarioName = scenarioName;
+        this.scenarioInstanceIdentifier = scenarioInstanceIdentifier;
+        this.scenarioInstanceIdentifierPattern = scenarioInstanceIdentifierPattern;
+        this.requiredScenarioState = requiredScenarioState;
+        this.newScenarioState = newScenarioState;
+        this.scenarioTimeToLive = scenarioTimeToLive;
+        this.scenarioIdleTimeout = scenarioIdleTimeout;
+        this.scenarioMaxInstances = scenarioMaxInstances;
+        this.scenarioEvictionPolicy = EvictionPolicy.fromString(scenarioEvictionPolicy);
+        this.scenarioTraceCapacity = scenarioTraceCapacity;
+        this.stubId = stubId;
+    }
+
+    /**
+     * Deserializes and validates the custom matcher parameters of a stub.
+     * 
+     * @param parameters the stub's custom matcher parameters
+     * @return the stub definition
+     * @throws ConfigurationException if a parameter has the wrong type, the request pattern is missing, the instance
+     *         identifier source is unknown or lacks its pattern, a regular expression doesn't compile, the url instance
+     *         identifier pattern has no capturing group or a limit is negative
+     */
+    public static ConcurrentScenarioStubDefinition from(Parameters parameters) {
+        ConcurrentScenarioStubDefinition definition;
+        try {
+            definition = parameters.as(ConcurrentScenarioStubDefinition.class);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("Invalid concurrent scenario stub parameters : " + e.getMessage());
+        }
+        definition.validate();
+        return definition;
+    }
+
+    /**
+     * @throws ConfigurationException if the definition can't be compiled
+     */
+    private void validate() {
+        if (request == null) {
+            throw new ConfigurationException("Missing request pattern");
+        }
+        if (scenarioName != null && scenarioInstanceIdentifier != null) {
+            switch (scenarioInstanceIdentifier) {
+                case "url" :
+                    if (scenarioInstanceIdentifierPattern != null
+                            && checkRegex("scenarioInstanceIdentifierPattern", scenarioInstanceIdentifierPattern).matcher("").groupCount() < 1) {
+                        throw new ConfigurationException("scenarioInstanceIdentifierPattern must capture the instance id in a group : "
+                                                       + scenarioInstanceIdentifierPattern);
+                    }
+                    break;
+                case "queryParameter" :
+                case "cookie" :
+                    if (scenarioInstanceIdentifierPattern == null) {
+                        throw new ConfigurationException("Missing scenarioInstanceIdentifierPattern naming the "
+                                                       + scenarioInstanceIdentifier + " holding the instance id");
+                    }
+                    break;
+                default :
+                    throw new ConfigurationException("Unknown instance identifier source : " + scenarioInstanceIdentifier);
+            }
+        }
+        if (request.urlPattern != null) {
+            checkRegex("urlPattern", request.urlPattern);
+        }
+        if (request.urlPathPattern != null) {
+            checkRegex("urlPathPattern", request.urlPathPattern);
+        }
+        checkNotNegative("scenarioTimeToLive", scenarioTimeToLive);
+        checkNotNegative("scenarioIdleTimeout", scenarioIdleTimeout);
+        checkNotNegative("scenarioMaxInstances", scenarioMaxInstances);
+        checkNotNegative("scenarioTraceCapacity", scenarioTraceCapacity);
+    }
+
+    private static Pattern checkRegex(String name, String regex) {
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new ConfigurationException(name + " is not a valid regular expression : " + e.getMessage());
+        }
+    }
+
+    private static void checkNotNegative(String name, Number value) {
+        if (value != null && value.longValue() < 0) {
+            throw new ConfigurationException(name + " must not be negative : " + value);
+        }
+    }
+
+    public RequestDefinition getRequest() {
+        return request;
+    }
+
+    public String getScenarioName() {
+        return scenarioName;
+    }
+
+    public String getScenarioInstanceIdentifier() {
+        return scenarioInstanceIdentifier;
+    }
+
+    public String getScenarioInstanceIdentifierPattern() {
+        return scenarioInstanceIdentifierPattern;
+    }
+
+    public String getRequiredScenarioState() {
+        return requiredScenarioState;
+    }
+
+    public String getNewScenarioState() {
+        return newScenarioState;
+    }
+
+    public Long getScenarioTimeToLive() {
+        return scenarioTimeToLive;
+    }
+
+    public Long getScenarioIdleTimeout() {
+        return scenarioIdleTimeout;
+    }
+
+    public Integer getScenarioMaxInstances() {
+        return scenarioMaxInstances;
+    }
+
+    public EvictionPolicy getScenarioEvictionPolicy() {
+        return scenarioEvictionPolicy;
+    }
+
+    public Integer getScenarioTraceCapacity() {
+        return scenarioTraceCapacity;
+    }
+
+    public String getStubId() {
+        return stubId;
+    }
+
+    /**
+     * @return the list, or an empty one if null, made unmodifiable
+     */
+    private static <T> List<T> immutable(List<T> list) {
+        return list == null ? Collections.emptyList() : Collections.unmodifiableList(list);
+    }
+
+    /**
+     * @return the map, or an empty one if null, made unmodifiable
+     */
+    private static <K,V> Map<K,V> immutable(Map<K,V> map) {
+        return map == null ? Collections.emptyMap() : Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * The request pattern of a stub, in the format of Wiremock's own request patterns.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static final class RequestDefinition {
+
+        private final String url;
+        private final String urlPattern;
+        private final String urlPath;
+        private final String urlPathPattern;
+        private final String method;
+        private final Map<String, Map<String, Object>> headers;
+        private final Map<String, Map<String, Object>> queryParameters;
+        private final Map<String, Map<String, Object>> cookies;
+        private final BasicCredentials basicAuthCredentials;
+        private final List<Map<String, Object>> bodyPatterns;
+        private final List<MultipartDefinition> multipartPatterns;
+
+        @JsonCreator
+        public RequestDefinition(@JsonProperty("url") String url,
+                                 @JsonProperty("urlPattern") String urlPattern,
+                                 @JsonProperty("urlPath") String urlPath,
+                                 @JsonProperty("urlPathPattern") String urlPathPattern,
+                                 @JsonProperty("method") String method,
+                                 @JsonProperty("headers") Map<String, Map<String, Object>> headers,
+                                 @JsonProperty("queryParameters") Map<String, Map<String, Object>> queryParameters,
+                                 @JsonProperty("cookies") Map<String, Map<String, Object>> cookies,
+                                 @JsonProperty("basicAuthCredentials") BasicCredentials basicAuthCredentials,
+                                 @JsonProperty("bodyPatterns") List<Map<String, Object>> bodyPatterns,
+                                 @JsonProperty("multipartPatterns") List<MultipartDefinition> multipartPatterns) {
+            this.url = url;
+            this.urlPattern = urlPattern;
+            this.urlPath = urlPath;
+            this.urlPathPattern = urlPathPattern;
+            this.method = method;
+            this.headers = immutable(headers);
+            this.queryParameters = immutable(queryParameters);
+            this.cookies = immutable(cookies);
+            this.basicAuthCredentials = basicAuthCredentials;
+            this.bodyPatterns = immutable(bodyPatterns);
+            this.multipartPatterns = immutable(multipartPatterns);
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getUrlPattern() {
+            return urlPattern;
+        }
+
+        public String getUrlPath() {
+            return urlPath;
+        }
+
+        public String getUrlPathPattern() {
+            return urlPathPattern;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public Map<String, Map<String, Object>> getHeaders() {
+            return headers;
+        }
+
+        public Map<String, Map<String, Object>> getQueryParameters() {
+            return queryParameters;
+        }
+
+        public Map<String, Map<String, Object>> getCookies() {
+            return cookies;
+        }
+
+        public BasicCredentials getBasicAuthCredentials() {
+            return basicAuthCredentials;
+        }
+
+        public List<Map<String, Object>> getBodyPatterns() {
+            return bodyPatterns;
+        }
+
+        public List<MultipartDefinition> getMultipartPatterns() {
+            return multipartPatterns;
+        }
+    }
+
+    /**
+     * A multipart pattern of a stub's request pattern.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static final class MultipartDefinition {
+
+        private final String name;
+        private final MultipartValuePattern.MatchingType matchingType;
+        private final Map<String, Map<String, Object>> headers;
+        private final List<Map<String, Object>> bodyPatterns;
+
+        @JsonCreator
+        public MultipartDefinition(@JsonProperty("name") String name,
+                                   @JsonProperty("matchingType") MultipartValuePattern.MatchingType matchingType,
+                                   @JsonProperty("headers") Map<String, Map<String, Object>> headers,
+                                   @JsonProperty("bodyPatterns") List<Map<String, Object>> bodyPatterns) {
+            this.name = name;
+            this.matchingType = matchingType;
+            this.headers = immutable(headers);
+            this.bodyPatterns = immutable(bodyPatterns);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public MultipartValuePattern.MatchingType getMatchingType() {
+            return matchingType;
+        }
+
+        public Map<String, Map<String, Object>> getHeaders() {
+            return headers;
+        }
+
+        public List<Map<String, Object>> getBodyPatterns() {
+            return bodyPatterns;
+        }
+    }
+}
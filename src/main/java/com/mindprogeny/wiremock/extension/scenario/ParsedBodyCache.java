@@ -0,0 +1,244 @@
+/*
+ * ParsedBodyCache.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.ref.SoftReference;
+import java.util.Collection;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilder;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import com.github.tomakehurst.wiremock.common.LocalNotifier;
+import com.github.tomakehurst.wiremock.common.SilentErrorHandler;
+import com.github.tomakehurst.wiremock.matching.MatchResult;
+import com.github.tomakehurst.wiremock.matching.MatchesJsonPathPattern;
+import com.github.tomakehurst.wiremock.matching.MatchesXPathPattern;
+
+import wiremock.com.jayway.jsonpath.Configuration;
+import wiremock.com.jayway.jsonpath.JsonPath;
+import wiremock.org.custommonkey.xmlunit.SimpleNamespaceContext;
+import wiremock.org.custommonkey.xmlunit.XMLUnit;
+import wiremock.org.custommonkey.xmlunit.XpathEngine;
+import wiremock.org.custommonkey.xmlunit.exceptions.XpathException;
+
+/**
+ * Per thread cache of the json and xml documents parsed from the last request body matched, so the body of a request is
+ * parsed at most once however many JsonPath and XPath patterns of however many stubs it is matched against.
+ * <p>
+ * Wiremock hands body patterns the body as a string, a new one for each stub, so the cached documents are reused as long
+ * as the body matched is equal to the one they were parsed from.
+ * <p>
+ * Each thread holds its cache through a {@link SoftReference}: the last body a thread matched and its documents are
+ * retained until the thread matches another body, or until the garbage collector needs the memory, which it reclaims
+ * from soft references before running out of it.  An idle server thread so retains at most one body and its documents,
+ * for as long as memory allows.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+final class ParsedBodyCache {
+
+    /**
+     * The cache of each thread, softly referenced
+     */
+    private static final ThreadLocal<SoftReference<ParsedBodyCache>> CACHES = new ThreadLocal<>();
+
+    /**
+     * The body the documents were parsed from
+     */
+    private String body;
+
+    /**
+     * The json document, or null if not parsed yet
+     */
+    private Object json;
+
+    /**
+     * The error the json document failed to be parsed with
+     */
+    private RuntimeException jsonError;
+
+    /**
+     * The xml document, or null if not parsed yet
+     */
+    private Document xml;
+
+    /**
+     * The error the xml document failed to be parsed with
+     */
+    private SAXException xmlError;
+
+    private ParsedBodyCache() {
+    }
+
+    /**
+     * @return the cache of the current thread, cleared if it holds the documents of another body
+     */
+    private static ParsedBodyCache of(String body) {
+        SoftReference<ParsedBodyCache> reference = CACHES.get();
+        ParsedBodyCache cache = reference == null ? null : reference.get();
+        if (cache == null) {
+            // first body of the thread, or the previous cache was reclaimed
+            cache = new ParsedBodyCache();
+            CACHES.set(new SoftReference<>(cache));
+        }
+        if (cache.body != body && !body.equals(cache.body)) {
+            cache.body = body;
+            cache.json = cache.xml = null;
+            cache.jsonError = null;
+            cache.xmlError = null;
+        }
+        return cache;
+    }
+
+    /**
+     * @param body the request body
+     * @return the json document parsed from the body by the default JsonPath json provider
+     * @throws RuntimeException the parsing error, if the body is not a json document
+     */
+    static Object json(String body) {
+        ParsedBodyCache cache = of(body);
+        if (cache.json == null && cache.jsonError == null) {
+            try {
+                cache.json = Configuration.defaultConfiguration().jsonProvider().parse(body);
+            } catch (RuntimeException e) {
+                cache.jsonError = e;
+            }
+        }
+        if (cache.jsonError != null) {
+            throw cache.jsonError;
+        }
+        return cache.json;
+    }
+
+    /**
+     * @param body the request body
+     * @return the xml document parsed from the body
+     * @throws SAXException the parsing error, if the body is not an xml document
+     * @throws IOException if the body couldn't be read
+     */
+    static Document xml(String body) throws SAXException, IOException {
+        ParsedBodyCache cache = of(body);
+        if (cache.xml == null && cache.xmlError == null) {
+            try {
+                DocumentBuilder documentBuilder = XMLUnit.newControlParser();
+                documentBuilder.setErrorHandler(new SilentErrorHandler());
+                cache.xml = XMLUnit.buildDocument(documentBuilder, new StringReader(body));
+            } catch (SAXException e) {
+                cache.xmlError = e;
+            }
+        }
+        if (cache.xmlError != null) {
+            throw cache.xmlError;
+        }
+        return cache.xml;
+    }
+
+    /**
+     * Wiremock's JsonPath pattern, reading its precompiled path from the cached json document of the body.
+     */
+    static final class JsonPathPattern extends MatchesJsonPathPattern {
+
+        /**
+         * The compiled path
+         */
+        private final JsonPath path;
+
+        JsonPathPattern(String expression) {
+            super(expression);
+            path = JsonPath.compile(expression);
+        }
+
+        /**
+         * @see com.github.tomakehurst.wiremock.matching.MatchesJsonPathPattern#isSimpleJsonPathMatch(java.lang.String)
+         */
+        @Override
+        protected MatchResult isSimpleJsonPathMatch(String value) {
+            if (value == null) {
+                return MatchResult.noMatch();
+            }
+            try {
+                Object result = path.read(json(value));
+                boolean matched;
+                if (result instanceof Collection) {
+                    matched = !((Collection<?>) result).isEmpty();
+                } else if (result instanceof Map) {
+                    matched = !((Map<?,?>) result).isEmpty();
+                } else {
+                    matched = result != null;
+                }
+                return MatchResult.of(matched);
+            } catch (Exception e) {
+                String error;
+                if ("invalid path".equalsIgnoreCase(e.getMessage())) {
+                    error = "the JSON path didn't match the document structure";
+                } else if ("invalid container object".equalsIgnoreCase(e.getMessage())) {
+                    error = "the JSON document couldn't be parsed";
+                } else {
+                    error = "of error '" + e.getMessage() + "'";
+                }
+                LocalNotifier.notifier().info(String.format("Warning: JSON path expression '%s' failed to match document '%s' because %s", 
+                                                            getExpected(), value, error));
+                return MatchResult.noMatch();
+            }
+        }
+    }
+
+    /**
+     * Wiremock's XPath pattern, evaluated on the cached xml document of the body.
+     */
+    static final class XPathPattern extends MatchesXPathPattern {
+
+        XPathPattern(String expression, Map<String,String> namespaces) {
+            super(expression, namespaces);
+        }
+
+        /**
+         * @see com.github.tomakehurst.wiremock.matching.MatchesXPathPattern#isSimpleJsonPathMatch(java.lang.String)
+         */
+        @Override
+        protected MatchResult isSimpleJsonPathMatch(String value) {
+            if (value == null) {
+                return MatchResult.noMatch();
+            }
+            try {
+                XpathEngine xpathEngine = XMLUnit.newXpathEngine();
+                if (getXPathNamespaces() != null) {
+                    xpathEngine.setNamespaceContext(new SimpleNamespaceContext(getXPathNamespaces()));
+                }
+                NodeList nodes = xpathEngine.getMatchingNodes(getExpected(), xml(value));
+                return MatchResult.of(nodes != null && nodes.getLength() > 0);
+            } catch (SAXException e) {
+                LocalNotifier.notifier().info(String.format("Warning: failed to parse the XML document. Reason: %s\nXML: %s", e.getMessage(), value));
+            } catch (IOException e) {
+                LocalNotifier.notifier().info(e.getMessage());
+            } catch (XpathException e) {
+                LocalNotifier.notifier().info("Warning: failed to evaluate the XPath expression " + getExpected());
+            }
+            return MatchResult.noMatch();
+        }
+    }
+}
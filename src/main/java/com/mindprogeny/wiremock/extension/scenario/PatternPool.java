@@ -0,0 +1,77 @@
+/*
+ * PatternPool.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.github.tomakehurst.wiremock.matching.ContentPattern;
+
+import wiremock.com.google.common.cache.Cache;
+import wiremock.com.google.common.cache.CacheBuilder;
+import wiremock.com.google.common.util.concurrent.UncheckedExecutionException;
+
+import static com.github.tomakehurst.wiremock.common.Exceptions.throwUnchecked;
+
+/**
+ * Pool of the canonical instance of each distinct content pattern used by the stubs, so stubs sharing the same header,
+ * cookie or body patterns share the same pattern instance along with its compiled regex, XPath or JsonPath state.
+ * <p>
+ * Patterns are keyed by a normalized form of their definition and weakly referenced, a pattern leaving the pool once no
+ * compiled stub uses it anymore.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+final class PatternPool {
+
+    /**
+     * Canonical patterns, by normalized definition
+     */
+    private static final Cache<Object, ContentPattern<?>> PATTERNS = CacheBuilder.newBuilder()
+                                                                                 .weakValues()
+                                                                                 .build();
+
+    private PatternPool() {
+    }
+
+    /**
+     * Gets the canonical pattern of a definition, building it if no stub uses an identical one.
+     * 
+     * @param definition the normalized definition of the pattern, with value based equality
+     * @param factory the factory of the pattern, called if it's not pooled
+     * @return the canonical pattern
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends ContentPattern<?>> T intern(Object definition, Callable<T> factory) {
+        try {
+            return (T) PATTERNS.get(definition, factory);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            return (T) throwUnchecked(e.getCause(), ContentPattern.class);
+        }
+    }
+
+    /**
+     * @return the approximate number of pooled patterns
+     */
+    static long size() {
+        return PATTERNS.size();
+    }
+}
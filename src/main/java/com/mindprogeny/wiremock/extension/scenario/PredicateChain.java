@@ -0,0 +1,192 @@
+/*
+ * PredicateChain.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.github.tomakehurst.wiremock.http.Cookie;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.matching.AbsentPattern;
+import com.github.tomakehurst.wiremock.matching.AbstractRegexPattern;
+import com.github.tomakehurst.wiremock.matching.AnythingPattern;
+import com.github.tomakehurst.wiremock.matching.ContainsPattern;
+import com.github.tomakehurst.wiremock.matching.EqualToPattern;
+import com.github.tomakehurst.wiremock.matching.MultiValuePattern;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.github.tomakehurst.wiremock.matching.StringValuePattern;
+import com.github.tomakehurst.wiremock.matching.UrlPattern;
+
+/**
+ * The header, query parameter and cookie parts of a stub's request pattern, and its url when given as a regular
+ * expression, as individual predicates ordered by the estimated cost of their value pattern, so that a request is
+ * rejected by the cheapest failing one and never reaches the expensive ones, nor the body and multipart patterns
+ * evaluated last by the full request pattern.
+ * <p>
+ * Each predicate holds when its part of the request pattern is an exact match, so the chain never rejects a request the
+ * request pattern would match.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+final class PredicateChain {
+
+    /**
+     * Cost of plain string comparisons, equality, containment or absence
+     */
+    static final int LITERAL = 0;
+
+    /**
+     * Cost of regular expressions
+     */
+    static final int REGEX = 1;
+
+    /**
+     * Cost of patterns parsing the value, json, xml, json path or xpath
+     */
+    static final int STRUCTURED = 2;
+
+    /**
+     * The predicates, cheapest first
+     */
+    private final Predicate<Request>[] predicates;
+
+    /**
+     * @param requestPattern the stub's request pattern
+     */
+    @SuppressWarnings("unchecked")
+    PredicateChain(RequestPattern requestPattern) {
+        List<Step> steps = new ArrayList<>();
+        UrlPattern urlPattern = requestPattern.getUrlMatcher();
+        if (urlPattern.isRegex()) {
+            steps.add(new Step(REGEX, request -> urlPattern.match(request.getUrl()).isExactMatch()));
+        }
+        Map<String, MultiValuePattern> headers = requestPattern.combineBasicAuthAndOtherHeaders();
+        if (headers != null) {
+            headers.forEach((name, pattern) -> add(steps, pattern.getValuePattern()
+                                                 , request -> pattern.match(request.header(name)).isExactMatch()));
+        }
+        if (requestPattern.getQueryParameters() != null) {
+            requestPattern.getQueryParameters().forEach((name, pattern) -> add(steps, pattern.getValuePattern()
+                                                 , request -> pattern.match(request.queryParameter(name)).isExactMatch()));
+        }
+        if (requestPattern.getCookies() != null) {
+            requestPattern.getCookies().forEach((name, pattern) -> add(steps, pattern, request -> matches(pattern, request.getCookies().get(name))));
+        }
+        // Stable sort, parts of the same cost keep the order they were declared in
+        steps.sort(Comparator.comparingInt(step -> step.cost));
+        predicates = steps.stream().map(step -> step.predicate).toArray(Predicate[]::new);
+    }
+
+    /**
+     * @param request the incoming request
+     * @return false if the request can't match the stub, true if it might
+     */
+    boolean accepts(Request request) {
+        for (Predicate<Request> predicate : predicates) {
+            if (!predicate.test(request)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of predicates in the chain
+     */
+    int size() {
+        return predicates.length;
+    }
+
+    /**
+     * Estimates the cost of evaluating a value pattern.
+     * 
+     * @param pattern the value pattern
+     * @return {@link #LITERAL}, {@link #REGEX} or {@link #STRUCTURED}
+     */
+    static int costOf(StringValuePattern pattern) {
+        if (pattern instanceof AbstractRegexPattern) {
+            return REGEX;
+        }
+        return pattern instanceof EqualToPattern || pattern instanceof ContainsPattern || pattern instanceof AbsentPattern
+             ? LITERAL : STRUCTURED;
+    }
+
+    /**
+     * Adds the predicate of a part of the request pattern, unless its value pattern matches anything.
+     * 
+     * @param steps the predicates collected so far
+     * @param pattern the part's value pattern
+     * @param predicate the part's predicate
+     */
+    private static void add(List<Step> steps, StringValuePattern pattern, Predicate<Request> predicate) {
+        if (!(pattern instanceof AnythingPattern)) {
+            steps.add(new Step(costOf(pattern), predicate));
+        }
+    }
+
+    /**
+     * Matches a cookie the way wiremock does, an absent cookie against the pattern's absence, a present one on any of its
+     * values.
+     * 
+     * @param pattern the cookie's value pattern
+     * @param cookie the request's cookie, or null if absent
+     * @return true if the cookie is an exact match
+     */
+    private static boolean matches(StringValuePattern pattern, Cookie cookie) {
+        if (cookie == null) {
+            return pattern.nullSafeIsAbsent();
+        }
+        for (String value : cookie.getValues()) {
+            if (pattern.match(value).isExactMatch()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A predicate and its estimated cost, while building the chain
+     */
+    private static final class Step {
+
+        /**
+         * The estimated cost
+         */
+        final int cost;
+
+        /**
+         * The predicate
+         */
+        final Predicate<Request> predicate;
+
+        /**
+         * @param cost the estimated cost
+         * @param predicate the predicate
+         */
+        Step(int cost, Predicate<Request> predicate) {
+            this.cost = cost;
+            this.predicate = predicate;
+        }
+    }
+}
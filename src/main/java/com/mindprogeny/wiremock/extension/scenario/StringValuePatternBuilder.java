@@ -24,8 +24,6 @@ import com.github.tomakehurst.wiremock.matching.ContainsPattern;
 import com.github.tomakehurst.wiremock.matching.EqualToJsonPattern;
 import com.github.tomakehurst.wiremock.matching.EqualToPattern;
 import com.github.tomakehurst.wiremock.matching.EqualToXmlPattern;
-import com.github.tomakehurst.wiremock.matching.MatchesJsonPathPattern;
-import com.github.tomakehurst.wiremock.matching.MatchesXPathPattern;
 import com.github.tomakehurst.wiremock.matching.NegativeRegexPattern;
 import com.github.tomakehurst.wiremock.matching.RegexPattern;
 import com.github.tomakehurst.wiremock.matching.StringValuePattern;
@@ -34,14 +32,18 @@ import com.github.tomakehurst.wiremock.matching.StringValuePatternJsonDeserializ
 // Reusing wiremock's guava dependency
 import wiremock.com.google.common.collect.ImmutableMap;
 
-import java.lang.reflect.Constructor;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-
-import static com.github.tomakehurst.wiremock.common.Exceptions.throwUnchecked;
+import java.util.function.Function;
 
 /**
  * Utility class that converst Wiremock's {@link StringValuePatternJsonDeserializer} to be applied to Extension Parameters instead of JSON
+ * <p>
+ * Patterns are immutable, so identical pattern definitions share the same pattern instance from the {@link PatternPool},
+ * sparing the recompilation of the same regular expressions, json documents or XPath expressions across stubs.  JsonPath
+ * and XPath patterns evaluate the documents of the {@link ParsedBodyCache}, parsing the body once for all of them.
  * 
  * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
  * @since 27 Mar 2018
@@ -50,63 +52,76 @@ import static com.github.tomakehurst.wiremock.common.Exceptions.throwUnchecked;
 public class StringValuePatternBuilder {
 
     /**
-     * Possible matching pattern parameters and their corresponding Pattern Match classes
+     * Possible matching pattern parameters and the factories of their corresponding Pattern Match classes, given the
+     * whole map of pattern matching parameters
      */
-    private static final Map<String, Class<? extends StringValuePattern>> MATCHERS =
-        new ImmutableMap.Builder<String, Class<? extends StringValuePattern>>()
-            .put("equalTo", EqualToPattern.class)
-            .put("equalToJson", EqualToJsonPattern.class)
-            .put("matchesJsonPath", MatchesJsonPathPattern.class)
-            .put("equalToXml", EqualToXmlPattern.class)
-            .put("matchesXPath", MatchesXPathPattern.class)
-            .put("contains", ContainsPattern.class)
-            .put("matches", RegexPattern.class)
-            .put("doesNotMatch", NegativeRegexPattern.class)
-            .put("anything", AnythingPattern.class)
+    private static final Map<String, Function<Map<String,Object>, StringValuePattern>> MATCHERS =
+        new ImmutableMap.Builder<String, Function<Map<String,Object>, StringValuePattern>>()
+            .put("equalTo", p -> new EqualToPattern((String) p.get("equalTo")))
+            .put("equalToJson", StringValuePatternBuilder::equalToJson)
+            .put("matchesJsonPath", p -> new ParsedBodyCache.JsonPathPattern((String) p.get("matchesJsonPath")))
+            .put("equalToXml", p -> new EqualToXmlPattern((String) p.get("equalToXml")))
+            .put("matchesXPath", StringValuePatternBuilder::matchesXPath)
+            .put("contains", p -> new ContainsPattern((String) p.get("contains")))
+            .put("matches", p -> new RegexPattern((String) p.get("matches")))
+            .put("doesNotMatch", p -> new NegativeRegexPattern((String) p.get("doesNotMatch")))
+            .put("anything", p -> new AnythingPattern((String) p.get("anything")))
             .build();
 
     /**
-     * Build a string value pattern through a map of supported pattern matching parameters.
+     * Build a string value pattern through a map of supported pattern matching parameters, or get the canonical one from
+     * the {@link PatternPool} if identical parameters were already built.
      * 
      * @param matchParameters map with pattern matching parameters
      * @return a StringValuePattern applying the provided pattern matching rules
      */
-    @SuppressWarnings("unchecked")
     public static StringValuePattern build(Map<String,Object> matchParameters) {
-
-        Class<? extends StringValuePattern> patternClass = null;
-        Object matchPattern = null;
         for (String matchMethod : matchParameters.keySet()) {
-            if ((patternClass = MATCHERS.get(matchMethod)) != null) {
-                matchPattern =  matchParameters.get(matchMethod);
-                break;
+            Function<Map<String,Object>, StringValuePattern> factory = MATCHERS.get(matchMethod);
+            if (factory != null) {
+                return PatternPool.intern(definitionOf(matchMethod, matchParameters), () -> factory.apply(matchParameters));
             }
         }
-        
-        if (patternClass == null) {
-            return StringValuePattern.ABSENT;
+        return StringValuePattern.ABSENT;
+    }
+
+    /**
+     * Normalizes pattern matching parameters, keeping only the ones the pattern is built from, and writing json
+     * documents in their compact form.
+     * 
+     * @param matchMethod the matching parameter of the pattern
+     * @param matchParameters map with pattern matching parameters
+     * @return the normalized definition of the pattern
+     */
+    private static List<Object> definitionOf(String matchMethod, Map<String,Object> matchParameters) {
+        Object value = matchParameters.get(matchMethod);
+        switch (matchMethod) {
+            case "equalToJson" :
+                return Arrays.asList(matchMethod
+                                   , (value instanceof String ? Json.node((String)value) : Json.getObjectMapper().valueToTree(value)).toString()
+                                   , Boolean.TRUE.equals(matchParameters.get("ignoreArrayOrder"))
+                                   , Boolean.TRUE.equals(matchParameters.get("ignoreExtraElements")));
+            case "matchesXPath" :
+                Object namespaces = matchParameters.get("xPathNamespaces");
+                return Arrays.asList(matchMethod, value, namespaces == null ? Collections.emptyMap() : namespaces);
+            default :
+                return Arrays.asList(matchMethod, value);
         }
-        
-        if (patternClass.equals(EqualToJsonPattern.class)) {
-            
-            Boolean ignoreArrayOrder = (Boolean) matchParameters.get("ignoreArrayOrder");
-            Boolean ignoreExtraElements = (Boolean) matchParameters.get("ignoreExtraElements");
+    }
 
-            return new EqualToJsonPattern(matchPattern instanceof String?(String)matchPattern:Json.write(matchPattern), ignoreArrayOrder==null?false:ignoreArrayOrder, ignoreExtraElements==null?false:ignoreExtraElements);
-        } 
- 
-        if (patternClass.equals(MatchesXPathPattern.class)) {
-            Map<String,String> namespaces = (Map<String, String>) matchParameters.get("xPathNamespaces");
+    private static StringValuePattern equalToJson(Map<String,Object> matchParameters) {
+        Object matchPattern = matchParameters.get("equalToJson");
+        Boolean ignoreArrayOrder = (Boolean) matchParameters.get("ignoreArrayOrder");
+        Boolean ignoreExtraElements = (Boolean) matchParameters.get("ignoreExtraElements");
 
-            return new MatchesXPathPattern(matchPattern.toString(), namespaces==null?Collections.<String, String>emptyMap():namespaces );
-        }
+        return new EqualToJsonPattern(matchPattern instanceof String?(String)matchPattern:Json.write(matchPattern), ignoreArrayOrder==null?false:ignoreArrayOrder, ignoreExtraElements==null?false:ignoreExtraElements);
+    }
 
-        Constructor<? extends StringValuePattern> constructor;
-        try {
-            constructor = patternClass.getConstructor(String.class);
-            return constructor.newInstance(matchPattern);
-        } catch (Exception e) {
-            return throwUnchecked(e, StringValuePattern.class);
-        }
+    @SuppressWarnings("unchecked")
+    private static StringValuePattern matchesXPath(Map<String,Object> matchParameters) {
+        Object matchPattern = matchParameters.get("matchesXPath");
+        Map<String,String> namespaces = (Map<String, String>) matchParameters.get("xPathNamespaces");
+
+        return new ParsedBodyCache.XPathPattern(matchPattern.toString(), namespaces==null?Collections.<String, String>emptyMap():namespaces );
     }
 }
@@ -0,0 +1,85 @@
+/*
+ * StubFilter.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario;
+
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioStubDefinition.RequestDefinition;
+
+/**
+ * Cheap pre-filter of a stub on the literal parts of its request pattern, its method and its url or url path when given
+ * as plain strings, rejecting requests of other methods or urls with simple string comparisons before the full request
+ * pattern is evaluated.
+ * <p>
+ * The filter never rejects a request the request pattern would match.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+final class StubFilter {
+
+    /**
+     * The stub's method, or null if any
+     */
+    private final RequestMethod method;
+
+    /**
+     * The stub's literal url or url path, or null if given as a regular expression or not given
+     */
+    private final String url;
+
+    /**
+     * Whether the literal url is a path, matched against request urls without their query string
+     */
+    private final boolean urlIsPath;
+
+    /**
+     * @param request the stub's request definition
+     */
+    StubFilter(RequestDefinition request) {
+        RequestMethod requestMethod = RequestMethod.fromString(request.getMethod());
+        method = RequestMethod.ANY.equals(requestMethod) ? null : requestMethod;
+        url = request.getUrl() != null ? request.getUrl() : request.getUrlPath();
+        urlIsPath = request.getUrl() == null;
+    }
+
+    /**
+     * @param request the incoming request
+     * @return false if the request can't match the stub, true if it might
+     */
+    boolean accepts(Request request) {
+        if (method != null && !method.equals(request.getMethod())) {
+            return false;
+        }
+        if (url == null) {
+            return true;
+        }
+        String requestUrl = request.getUrl();
+        if (!urlIsPath) {
+            return url.equals(requestUrl);
+        }
+        if (requestUrl.indexOf('%') >= 0) {
+            // Wiremock matches decoded paths, left to the request pattern
+            return true;
+        }
+        int query = requestUrl.indexOf('?');
+        return query < 0 ? url.equals(requestUrl) : url.length() == query && requestUrl.startsWith(url);
+    }
+}
@@ -27,11 +27,12 @@ import com.github.tomakehurst.wiremock.core.Admin;
 import com.github.tomakehurst.wiremock.http.Request;
 import com.github.tomakehurst.wiremock.http.ResponseDefinition;
 import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioExtension;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
 
 /**
  * Admin task to clear all scenarios.
  * <p>
- * This is a good operation to execute alongside a stub reset.
+ * This is a good operation to execute alongside a stub reset, as it also discards all compiled stubs.
  * 
  * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
  * @since 23 Apr 2018
@@ -39,13 +40,26 @@ import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioExtension;
  */
 public class ClearScenarios implements AdminTask {
 
+    /**
+     * The Scenario repository
+     */
+    private final ScenarioStore store;
+
+    /**
+     * @param store the scenario repository to clear
+     */
+    public ClearScenarios(ScenarioStore store) {
+        this.store = store;
+    }
+
     /**
      * @see com.github.tomakehurst.wiremock.admin.AdminTask#execute(com.github.tomakehurst.wiremock.core.Admin, com.github.tomakehurst.wiremock.http.Request, com.github.tomakehurst.wiremock.admin.model.PathParams)
      */
     @Override
     public ResponseDefinition execute(Admin admin, Request request, PathParams pathParams) {
         
-        ConcurrentScenarioExtension.clearAll();
+        store.clearAll();
+        ConcurrentScenarioExtension.clearCompiledStubs(store);
         
         return ResponseDefinitionBuilder.responseDefinition()
                                         .withStatus(HttpURLConnection.HTTP_OK)
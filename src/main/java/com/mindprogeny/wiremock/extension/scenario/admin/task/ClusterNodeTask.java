@@ -0,0 +1,286 @@
+/*
+ * ClusterNodeTask.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.admin.task;
+
+import java.net.HttpURLConnection;
+
+import com.github.tomakehurst.wiremock.admin.AdminTask;
+import com.github.tomakehurst.wiremock.admin.model.PathParams;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.core.Admin;
+import com.github.tomakehurst.wiremock.http.QueryParameter;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.mindprogeny.wiremock.extension.scenario.store.ClusteredScenarioStore;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
+import com.mindprogeny.wiremock.extension.scenario.store.SymbolTable;
+
+/**
+ * Admin tasks applying the operations sent by the other nodes of a {@link ClusteredScenarioStore} cluster on the local
+ * store.
+ * <p>
+ * Scenario, instance and state names are given as query parameters, and states are returned as plain text.  As WireMock
+ * finds the route of a task by its class, each operation is a task class of its own.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public abstract class ClusterNodeTask implements AdminTask {
+
+    /**
+     * The local Scenario repository
+     */
+    protected final ScenarioStore store;
+
+    /**
+     * @param store the scenario repository given to the admin api, whose local store the operation is applied on
+     */
+    protected ClusterNodeTask(ScenarioStore store) {
+        this.store = ClusteredScenarioStore.localStoreOf(store);
+    }
+
+    /**
+     * @see com.github.tomakehurst.wiremock.admin.AdminTask#execute(com.github.tomakehurst.wiremock.core.Admin, com.github.tomakehurst.wiremock.http.Request, com.github.tomakehurst.wiremock.admin.model.PathParams)
+     */
+    @Override
+    public ResponseDefinition execute(Admin admin, Request request, PathParams pathParams) {
+        String scenario = parameter(request, "scenario");
+        String instance = parameter(request, "instance");
+        if (scenario == null || instance == null) {
+            return ResponseDefinitionBuilder.responseDefinition()
+                                            .withStatus(HttpURLConnection.HTTP_BAD_REQUEST)
+                                            .build();
+        }
+        return execute(request, ScenarioStore.SCENARIO_NAMES.intern(scenario), instance);
+    }
+
+    /**
+     * Applies the operation on an instance.
+     * 
+     * @param request the admin request
+     * @param scenarioId the interned scenario name
+     * @param instance the instance id
+     * @return the response to the node that sent the operation
+     */
+    protected abstract ResponseDefinition execute(Request request, int scenarioId, String instance);
+
+    /**
+     * @return the first value of a query parameter, or null if absent
+     */
+    protected static String parameter(Request request, String name) {
+        QueryParameter parameter = request.queryParameter(name);
+        return parameter.isPresent() ? parameter.firstValue() : null;
+    }
+
+    /**
+     * @return the interned state, or {@link SymbolTable#UNKNOWN} if null
+     */
+    protected static int internState(String state) {
+        return state == null ? SymbolTable.UNKNOWN : ScenarioStore.STATE_NAMES.intern(state);
+    }
+
+    /**
+     * @return 200 with the state name, or 404 if unknown
+     */
+    protected static ResponseDefinition state(int state) {
+        if (state == SymbolTable.UNKNOWN) {
+            return status(false);
+        }
+        return ResponseDefinitionBuilder.responseDefinition()
+                                        .withStatus(HttpURLConnection.HTTP_OK)
+                                        .withHeader("content-type", "text/plain")
+                                        .withBody(ScenarioStore.STATE_NAMES.nameOf(state))
+                                        .build();
+    }
+
+    /**
+     * @return 404 with the state name, empty if unknown
+     */
+    protected static ResponseDefinition missed(int state) {
+        return ResponseDefinitionBuilder.responseDefinition()
+                                        .withStatus(HttpURLConnection.HTTP_NOT_FOUND)
+                                        .withHeader("content-type", "text/plain")
+                                        .withBody(state == SymbolTable.UNKNOWN ? "" : ScenarioStore.STATE_NAMES.nameOf(state))
+                                        .build();
+    }
+
+    /**
+     * @return 200 if the operation was applied, 404 otherwise
+     */
+    protected static ResponseDefinition status(boolean applied) {
+        return ResponseDefinitionBuilder.responseDefinition()
+                                        .withStatus(applied ? HttpURLConnection.HTTP_OK : HttpURLConnection.HTTP_NOT_FOUND)
+                                        .build();
+    }
+
+    /**
+     * Transitions an instance from the "required" state to the "new" one, initializing it if needed, returning the state
+     * it is in if not transitioned, or just initializes it and returns its state if neither state is given
+     */
+    public static class Transition extends ClusterNodeTask {
+
+        public Transition(ScenarioStore store) {
+            super(store);
+        }
+
+        @Override
+        protected ResponseDefinition execute(Request request, int scenarioId, String instance) {
+            String required = parameter(request, "required");
+            String newState = parameter(request, "new");
+            if (required == null && newState == null) {
+                return state(store.getOrInitialize(scenarioId, instance));
+            }
+            if (store.transition(scenarioId, instance, internState(required), internState(newState))) {
+                return status(true);
+            }
+            return missed(store.peekState(scenarioId, instance));
+        }
+    }
+
+    /**
+     * Returns the state of an instance
+     */
+    public static class GetState extends ClusterNodeTask {
+
+        public GetState(ScenarioStore store) {
+            super(store);
+        }
+
+        @Override
+        protected ResponseDefinition execute(Request request, int scenarioId, String instance) {
+            return state(store.getState(scenarioId, instance));
+        }
+    }
+
+    /**
+     * Sets the state of an instance to the "state"
+     */
+    public static class SetState extends ClusterNodeTask {
+
+        public SetState(ScenarioStore store) {
+            super(store);
+        }
+
+        @Override
+        protected ResponseDefinition execute(Request request, int scenarioId, String instance) {
+            String state = parameter(request, "state");
+            if (state == null) {
+                return ResponseDefinitionBuilder.responseDefinition()
+                                                .withStatus(HttpURLConnection.HTTP_BAD_REQUEST)
+                                                .build();
+            }
+            store.setState(scenarioId, instance, ScenarioStore.STATE_NAMES.intern(state));
+            return status(true);
+        }
+    }
+
+    /**
+     * Deletes an instance
+     */
+    public static class ClearInstance extends ClusterNodeTask {
+
+        public ClearInstance(ScenarioStore store) {
+            super(store);
+        }
+
+        @Override
+        protected ResponseDefinition execute(Request request, int scenarioId, String instance) {
+            return status(store.clearInstance(scenarioId, instance));
+        }
+    }
+
+    /**
+     * Deletes a scenario, given without an instance
+     */
+    public static class ClearScenario extends ClusterNodeTask {
+
+        public ClearScenario(ScenarioStore store) {
+            super(store);
+        }
+
+        @Override
+        public ResponseDefinition execute(Admin admin, Request request, PathParams pathParams) {
+            String scenario = parameter(request, "scenario");
+            if (scenario == null) {
+                return ResponseDefinitionBuilder.responseDefinition()
+                                                .withStatus(HttpURLConnection.HTTP_BAD_REQUEST)
+                                                .build();
+            }
+            return status(store.clearScenario(scenario));
+        }
+
+        @Override
+        protected ResponseDefinition execute(Request request, int scenarioId, String instance) {
+            return status(store.clearScenario(scenarioId));
+        }
+    }
+
+    /**
+     * Returns the number of instances of a scenario, given without an instance
+     */
+    public static class CountInstances extends ClusterNodeTask {
+
+        public CountInstances(ScenarioStore store) {
+            super(store);
+        }
+
+        @Override
+        public ResponseDefinition execute(Admin admin, Request request, PathParams pathParams) {
+            String scenario = parameter(request, "scenario");
+            if (scenario == null) {
+                return ResponseDefinitionBuilder.responseDefinition()
+                                                .withStatus(HttpURLConnection.HTTP_BAD_REQUEST)
+                                                .build();
+            }
+            return execute(request, ScenarioStore.SCENARIO_NAMES.intern(scenario), null);
+        }
+
+        @Override
+        protected ResponseDefinition execute(Request request, int scenarioId, String instance) {
+            return ResponseDefinitionBuilder.responseDefinition()
+                                            .withStatus(HttpURLConnection.HTTP_OK)
+                                            .withHeader("content-type", "text/plain")
+                                            .withBody(Integer.toString(store.countInstances(scenarioId)))
+                                            .build();
+        }
+    }
+
+    /**
+     * Deletes all scenarios
+     */
+    public static class ClearAll extends ClusterNodeTask {
+
+        public ClearAll(ScenarioStore store) {
+            super(store);
+        }
+
+        @Override
+        public ResponseDefinition execute(Admin admin, Request request, PathParams pathParams) {
+            store.clearAll();
+            return status(true);
+        }
+
+        @Override
+        protected ResponseDefinition execute(Request request, int scenarioId, String instance) {
+            store.clearAll();
+            return status(true);
+        }
+    }
+}
@@ -26,7 +26,7 @@ import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
 import com.github.tomakehurst.wiremock.core.Admin;
 import com.github.tomakehurst.wiremock.http.Request;
 import com.github.tomakehurst.wiremock.http.ResponseDefinition;
-import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioExtension;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
 
 /**
  * Admin task to remove a scenario and all its instances from the repository.
@@ -39,13 +39,25 @@ import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioExtension;
  */
 public class DeleteScenario implements AdminTask {
 
+    /**
+     * The Scenario repository
+     */
+    private final ScenarioStore store;
+
+    /**
+     * @param store the scenario repository to delete from
+     */
+    public DeleteScenario(ScenarioStore store) {
+        this.store = store;
+    }
+
     /**
      * @see com.github.tomakehurst.wiremock.admin.AdminTask#execute(com.github.tomakehurst.wiremock.core.Admin, com.github.tomakehurst.wiremock.http.Request, com.github.tomakehurst.wiremock.admin.model.PathParams)
      */
     @Override
     public ResponseDefinition execute(Admin admin, Request request, PathParams pathParams) {
         
-        if (!ConcurrentScenarioExtension.clearScenario(pathParams.get("scenario"))) {
+        if (!store.clearScenario(pathParams.get("scenario"))) {
             return ResponseDefinitionBuilder.responseDefinition()
                                             .withStatus(HttpURLConnection.HTTP_NOT_FOUND)
                                             .build();
@@ -26,7 +26,7 @@ import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
 import com.github.tomakehurst.wiremock.core.Admin;
 import com.github.tomakehurst.wiremock.http.Request;
 import com.github.tomakehurst.wiremock.http.ResponseDefinition;
-import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioExtension;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
 
 /**
  * Admin task to remove a scenario's specific instance from the repository.
@@ -41,13 +41,25 @@ import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioExtension;
  */
 public class DeleteScenarioInstance implements AdminTask {
 
+    /**
+     * The Scenario repository
+     */
+    private final ScenarioStore store;
+
+    /**
+     * @param store the scenario repository to delete from
+     */
+    public DeleteScenarioInstance(ScenarioStore store) {
+        this.store = store;
+    }
+
     /**
      * @see com.github.tomakehurst.wiremock.admin.AdminTask#execute(com.github.tomakehurst.wiremock.core.Admin, com.github.tomakehurst.wiremock.http.Request, com.github.tomakehurst.wiremock.admin.model.PathParams)
      */
     @Override
     public ResponseDefinition execute(Admin admin, Request request, PathParams pathParams) {
         
-        if (!ConcurrentScenarioExtension.clearInstance(pathParams.get("scenario"),pathParams.get("instance"))) {
+        if (!store.clearInstance(pathParams.get("scenario"),pathParams.get("instance"))) {
             return ResponseDefinitionBuilder.responseDefinition()
                                             .withStatus(HttpURLConnection.HTTP_NOT_FOUND)
                                             .build();
@@ -18,12 +18,14 @@
  */
 package com.mindprogeny.wiremock.extension.scenario.admin.task;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.HttpURLConnection;
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.github.tomakehurst.wiremock.admin.AdminTask;
@@ -32,9 +34,14 @@ import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
 import com.github.tomakehurst.wiremock.core.Admin;
 import com.github.tomakehurst.wiremock.http.Request;
 import com.github.tomakehurst.wiremock.http.ResponseDefinition;
-import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioExtension;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
 
-import wiremock.com.fasterxml.jackson.databind.ObjectMapper;
+import wiremock.com.fasterxml.jackson.core.JsonEncoding;
+import wiremock.com.fasterxml.jackson.core.JsonFactory;
+import wiremock.com.fasterxml.jackson.core.JsonGenerator;
+import wiremock.com.fasterxml.jackson.core.JsonParseException;
+import wiremock.com.fasterxml.jackson.core.JsonParser;
+import wiremock.com.fasterxml.jackson.core.JsonToken;
 
 /**
  * Admin task to remove a() scenario(s) or its(their) instance(s) from the repository, getting the parameters from a json body.
@@ -78,45 +85,57 @@ import wiremock.com.fasterxml.jackson.databind.ObjectMapper;
  *   , "instance2": false }
  * }
  * </pre>
+ * <p>
+ * The body is parsed as a stream, each scenario or instance being deleted as soon as it is read, so deletions read
+ * before a format error are still applied.  The body itself is held in memory by Wiremock, and the results are collected
+ * until the response is written, so memory grows with the number of scenarios and instances given, as does the response;
+ * only the parsed form of the body is never built.  Instances given before their scenario name are held until the name is
+ * read.
+ * <p>
+ * A scenario name or an instance id given more than once is reported once, with the result of its last deletion.
  * 
  * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
  * @since 25 Apr 2018
  *
  */
 public class DeleteScenariosWithBody implements AdminTask {
+
+    /**
+     * The Scenario repository
+     */
+    private final ScenarioStore store;
+
+    /**
+     * @param store the scenario repository to delete from
+     */
+    public DeleteScenariosWithBody(ScenarioStore store) {
+        this.store = store;
+    }
     
     /**
-     * Object Mapper to deserialize maps
+     * Factory of the streaming parsers and generators
      */
-    private ObjectMapper jsonMapper = new ObjectMapper();
+    private final JsonFactory jsonFactory = new JsonFactory();
 
     /**
      * @see com.github.tomakehurst.wiremock.admin.AdminTask#execute(com.github.tomakehurst.wiremock.core.Admin, com.github.tomakehurst.wiremock.http.Request, com.github.tomakehurst.wiremock.admin.model.PathParams)
      */
-    @SuppressWarnings("unchecked")
 	@Override
     public ResponseDefinition execute(Admin admin, Request request, PathParams pathParams) {
-    	Map<String,Object> result= new HashMap<>();
-        try {
-            Map<String, Collection<Map<String, Object>>> params = jsonMapper.readValue(request.getBodyAsString(), Map.class);
-            for (Map<String, Object> scenario : params.get("scenarios")) {
-            	String name = (String)scenario.get("name");
-            	Collection<String> instances = (Collection<String>) scenario.get("instances");
-            	if (instances == null) {
-            		result.put(name, ConcurrentScenarioExtension.clearScenario(name));
-            	} else {
-            		Map<String,Boolean> instancesResult = new HashMap<>();
-            		result.put(name, instancesResult);
-            		for (String instance : instances) {
-            			instancesResult.put(instance, ConcurrentScenarioExtension.clearInstance(name, instance));
-            		}
-            	}
+        Map<String, Object> results = new LinkedHashMap<>();
+        try (JsonParser parser = jsonFactory.createParser(request.getBody())) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                if (!"scenarios".equals(parser.getCurrentName())) {
+                    parser.nextToken();
+                    parser.skipChildren();
+                    continue;
+                }
+                expect(parser, parser.nextToken(), JsonToken.START_ARRAY);
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    deleteScenario(parser, results);
+                }
             }
-            return ResponseDefinitionBuilder.responseDefinition()
-                                            .withStatus(HttpURLConnection.HTTP_OK)
-                                            .withHeader("content-type", "application/json")
-                                            .withBody(jsonMapper.writeValueAsString(result))
-                                            .build();
         } catch (IOException ioe) {
             StringWriter writer = new StringWriter();
             ioe.printStackTrace(new PrintWriter(writer));
@@ -127,6 +146,109 @@ public class DeleteScenariosWithBody implements AdminTask {
                                             .withBody("Expected format is:\n{\n  \"scenarios\": [\n    {\n      \"name\": \"<scenario name>\",\n      \"instances\": [\"<instance id>...\"]}\n  ]\n}")
                                             .build();
         }
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try {
+            write(results, result);
+        } catch (IOException ioe) {
+            return ResponseDefinitionBuilder.responseDefinition()
+                                            .withStatus(HttpURLConnection.HTTP_OK)
+                                            .build();
+        }
+        return ResponseDefinitionBuilder.responseDefinition()
+                                        .withStatus(HttpURLConnection.HTTP_OK)
+                                        .withHeader("content-type", "application/json")
+                                        .withBody(result.toByteArray())
+                                        .build();
+    }
+
+    /**
+     * Deletes the scenario, or the scenario instances, of the object the parser is at, recording the result.  The
+     * instances are deleted as they are read, unless they come before the scenario name, in which case they are held
+     * until the name is read.  The result replaces the one of an earlier object with the same scenario name.
+     * 
+     * @param parser the parser, right after the start of the scenario object, left at its end
+     * @param results the results, by scenario name
+     * @throws IOException if the object is not in the expected format
+     */
+    private void deleteScenario(JsonParser parser, Map<String, Object> results) throws IOException {
+        String name = null;
+        List<String> pending = null;
+        boolean instancesGiven = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("name".equals(field)) {
+                expect(parser, value, JsonToken.VALUE_STRING);
+                name = parser.getText();
+                if (pending != null) {
+                    Map<String, Boolean> instancesResult = new LinkedHashMap<>();
+                    for (String instance : pending) {
+                        instancesResult.put(instance, store.clearInstance(name, instance));
+                    }
+                    results.put(name, instancesResult);
+                }
+            } else if ("instances".equals(field) && value != JsonToken.VALUE_NULL) {
+                expect(parser, value, JsonToken.START_ARRAY);
+                instancesGiven = true;
+                if (name == null) {
+                    pending = new ArrayList<>();
+                    while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                        pending.add(parser.getText());
+                    }
+                } else {
+                    Map<String, Boolean> instancesResult = new LinkedHashMap<>();
+                    results.put(name, instancesResult);
+                    while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                        String instance = parser.getText();
+                        instancesResult.put(instance, store.clearInstance(name, instance));
+                    }
+                }
+                expect(parser, parser.getCurrentToken(), JsonToken.END_ARRAY);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (name == null) {
+            throw new JsonParseException(parser, "Missing scenario name");
+        }
+        if (!instancesGiven) {
+            results.put(name, store.clearScenario(name));
+        }
+    }
+
+    /**
+     * Writes the results, either a boolean or the boolean results of the instances of each scenario.
+     * 
+     * @param results the results, by scenario name
+     * @param out the stream to write them to
+     * @throws IOException if the results can't be written
+     */
+    @SuppressWarnings("unchecked")
+    private void write(Map<String, Object> results, ByteArrayOutputStream out) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            for (Map.Entry<String, Object> scenario : results.entrySet()) {
+                if (scenario.getValue() instanceof Boolean) {
+                    generator.writeBooleanField(scenario.getKey(), (Boolean)scenario.getValue());
+                } else {
+                    generator.writeObjectFieldStart(scenario.getKey());
+                    for (Map.Entry<String, Boolean> instance : ((Map<String, Boolean>)scenario.getValue()).entrySet()) {
+                        generator.writeBooleanField(instance.getKey(), instance.getValue());
+                    }
+                    generator.writeEndObject();
+                }
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * @throws JsonParseException if the token read is not the expected one
+     */
+    private static void expect(JsonParser parser, JsonToken token, JsonToken expected) throws JsonParseException {
+        if (token != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but got " + token);
+        }
     }
 
 }
@@ -0,0 +1,87 @@
+/*
+ * GetPrometheusMetrics.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.admin.task;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+
+import com.github.tomakehurst.wiremock.admin.AdminTask;
+import com.github.tomakehurst.wiremock.admin.model.PathParams;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.core.Admin;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
+
+/**
+ * Admin task to export the scenario repository statistics (instance counts, state distribution, eviction counters and
+ * matching metrics) in the Prometheus text exposition format, to be scraped by a Prometheus server.  Each node of a
+ * cluster exports its own instances and metrics, to be scraped and summed over all the nodes.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class GetPrometheusMetrics implements AdminTask {
+
+    /**
+     * The Scenario repository
+     */
+    private final ScenarioStore store;
+
+    /**
+     * @param store the scenario repository whose statistics to export
+     */
+    public GetPrometheusMetrics(ScenarioStore store) {
+        this.store = store;
+    }
+
+    /**
+     * @see com.github.tomakehurst.wiremock.admin.AdminTask#execute(com.github.tomakehurst.wiremock.core.Admin, com.github.tomakehurst.wiremock.http.Request, com.github.tomakehurst.wiremock.admin.model.PathParams)
+     */
+    @Override
+    public ResponseDefinition execute(Admin paramAdmin, Request paramRequest, PathParams paramPathParams) {
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            Writer writer = new OutputStreamWriter(body, StandardCharsets.UTF_8);
+            PrometheusWriter.write(store, writer);
+            return ResponseDefinitionBuilder.responseDefinition()
+                                            .withStatus(HttpURLConnection.HTTP_OK)
+                                            .withHeader("content-type", PrometheusWriter.CONTENT_TYPE)
+                                            .withBody(body.toByteArray())
+                                            .build();
+        } catch (IOException ioe) {
+            StringWriter writer = new StringWriter();
+            ioe.printStackTrace(new PrintWriter(writer));
+            return ResponseDefinitionBuilder.responseDefinition()
+                                            .withStatus(HttpURLConnection.HTTP_INTERNAL_ERROR)
+                                            .withStatusMessage("(WireMock) Not able to export scenario metrics.")
+                                            .withHeader("content-type", "text/text")
+                                            .withBody(writer.toString())
+                                            .build();
+        }
+    }
+
+}
@@ -18,6 +18,8 @@
  */
 package com.mindprogeny.wiremock.extension.scenario.admin.task;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.HttpURLConnection;
@@ -28,18 +30,29 @@ import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
 import com.github.tomakehurst.wiremock.core.Admin;
 import com.github.tomakehurst.wiremock.http.Request;
 import com.github.tomakehurst.wiremock.http.ResponseDefinition;
-import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioExtension;
-
-import wiremock.com.fasterxml.jackson.core.JsonProcessingException;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
 
 /**
- * Admin task to show all the existing Scenario instances and their current states.
+ * Admin task to show all the existing Scenario instances and their current states, optionally paginated and filtered
+ * (see {@link ListingQuery}).  Only the instances owned by this node are shown when the store is shared by a cluster.
  * 
  * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
  * @since 23 Apr 2018
  *
  */
 public class GetScenario implements AdminTask {
+
+    /**
+     * The Scenario repository
+     */
+    private final ScenarioStore store;
+
+    /**
+     * @param store the scenario repository to show
+     */
+    public GetScenario(ScenarioStore store) {
+        this.store = store;
+    }
     
     /**
      * @see com.github.tomakehurst.wiremock.admin.AdminTask#execute(com.github.tomakehurst.wiremock.core.Admin, com.github.tomakehurst.wiremock.http.Request, com.github.tomakehurst.wiremock.admin.model.PathParams)
@@ -47,14 +60,26 @@ public class GetScenario implements AdminTask {
     @Override
     public ResponseDefinition execute(Admin admin, Request request, PathParams pathParams) {
         try {
+            ListingQuery query = new ListingQuery(request);
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            String cursor = ScenarioJsonWriter.writeScenario(store, pathParams.get("scenario"), query, body);
+            ResponseDefinitionBuilder response = ResponseDefinitionBuilder.responseDefinition()
+                                                                          .withStatus(HttpURLConnection.HTTP_OK)
+                                                                          .withHeader("content-type", "application/json")
+                                                                          .withBody(body.toByteArray());
+            if (cursor != null) {
+                response.withHeader(ListingQuery.CURSOR_HEADER, cursor);
+            }
+            return response.build();
+        } catch (IllegalArgumentException iae) {
             return ResponseDefinitionBuilder.responseDefinition()
-                                            .withStatus(HttpURLConnection.HTTP_OK)
-                                            .withHeader("content-type", "application/json")
-                                            .withBody(ConcurrentScenarioExtension.serializeScenarioInstances(pathParams.get("scenario")))
+                                            .withStatus(HttpURLConnection.HTTP_BAD_REQUEST)
+                                            .withHeader("content-type", "text/text")
+                                            .withBody(iae.getMessage())
                                             .build();
-        } catch (JsonProcessingException jpe) {
+        } catch (IOException ioe) {
             StringWriter writer = new StringWriter();
-            jpe.printStackTrace(new PrintWriter(writer));
+            ioe.printStackTrace(new PrintWriter(writer));
             return ResponseDefinitionBuilder.responseDefinition()
                                             .withStatus(HttpURLConnection.HTTP_INTERNAL_ERROR)
                                             .withStatusMessage("(WireMock) Not able to serialize Scenarios.")
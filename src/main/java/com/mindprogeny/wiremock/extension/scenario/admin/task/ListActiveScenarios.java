@@ -18,6 +18,8 @@
  */
 package com.mindprogeny.wiremock.extension.scenario.admin.task;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.HttpURLConnection;
@@ -28,12 +30,12 @@ import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
 import com.github.tomakehurst.wiremock.core.Admin;
 import com.github.tomakehurst.wiremock.http.Request;
 import com.github.tomakehurst.wiremock.http.ResponseDefinition;
-import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioExtension;
-
-import wiremock.com.fasterxml.jackson.core.JsonProcessingException;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
 
 /**
- * Admin task to show all known (triggered) custom scenarios, their instances and current states
+ * Admin task to show all known (triggered) custom scenarios, their instances and current states, optionally paginated and
+ * filtered (see {@link ListingQuery}).  A node of a cluster only lists the instances it owns, see
+ * {@link CountScenarioInstances} for cluster wide counts.
  * 
  * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
  * @since 23 Apr 2018
@@ -41,20 +43,44 @@ import wiremock.com.fasterxml.jackson.core.JsonProcessingException;
  */
 public class ListActiveScenarios implements AdminTask {
 
+    /**
+     * The Scenario repository
+     */
+    private final ScenarioStore store;
+
+    /**
+     * @param store the scenario repository to show
+     */
+    public ListActiveScenarios(ScenarioStore store) {
+        this.store = store;
+    }
+
     /**
      * @see com.github.tomakehurst.wiremock.admin.AdminTask#execute(com.github.tomakehurst.wiremock.core.Admin, com.github.tomakehurst.wiremock.http.Request, com.github.tomakehurst.wiremock.admin.model.PathParams)
      */
     @Override
     public ResponseDefinition execute(Admin paramAdmin, Request paramRequest, PathParams paramPathParams) {
         try {
+            ListingQuery query = new ListingQuery(paramRequest);
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            String cursor = ScenarioJsonWriter.writeScenarios(store, query, body);
+            ResponseDefinitionBuilder response = ResponseDefinitionBuilder.responseDefinition()
+                                                                          .withStatus(HttpURLConnection.HTTP_OK)
+                                                                          .withHeader("content-type", "application/json")
+                                                                          .withBody(body.toByteArray());
+            if (cursor != null) {
+                response.withHeader(ListingQuery.CURSOR_HEADER, cursor);
+            }
+            return response.build();
+        } catch (IllegalArgumentException iae) {
             return ResponseDefinitionBuilder.responseDefinition()
-                                            .withStatus(HttpURLConnection.HTTP_OK)
-                                            .withHeader("content-type", "application/json")
-                                            .withBody(ConcurrentScenarioExtension.serializeScenarios())
+                                            .withStatus(HttpURLConnection.HTTP_BAD_REQUEST)
+                                            .withHeader("content-type", "text/text")
+                                            .withBody(iae.getMessage())
                                             .build();
-        } catch (JsonProcessingException jpe) {
+        } catch (IOException ioe) {
             StringWriter writer = new StringWriter();
-            jpe.printStackTrace(new PrintWriter(writer));
+            ioe.printStackTrace(new PrintWriter(writer));
             return ResponseDefinitionBuilder.responseDefinition()
                                             .withStatus(HttpURLConnection.HTTP_INTERNAL_ERROR)
                                             .withStatusMessage("(WireMock) Not able to serialize Scenarios.")
@@ -0,0 +1,188 @@
+/*
+ * ListingQuery.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.admin.task;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.github.tomakehurst.wiremock.http.QueryParameter;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.mindprogeny.wiremock.extension.scenario.store.InstanceVisitor;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
+import com.mindprogeny.wiremock.extension.scenario.store.SymbolTable;
+
+/**
+ * Pagination and filters of a scenario listing, read from the query parameters of the admin request:
+ * <ul>
+ * <li>limit: maximum number of instances in the page</li>
+ * <li>cursor: the cursor returned with the previous page, to get the next one</li>
+ * <li>state: only instances in the given state</li>
+ * <li>prefix: only instances whose id starts with the given prefix</li>
+ * <li>regex: only instances whose id matches the given regular expression</li>
+ * <li>touchedAfter / touchedBefore: only instances last touched at or after / before the given time, in milliseconds
+ * since the epoch</li>
+ * </ul>
+ * When there are more instances than the limit, the cursor of the next page is returned in the {@link #CURSOR_HEADER}
+ * response header.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+final class ListingQuery {
+
+    /**
+     * Response header holding the cursor of the next page
+     */
+    static final String CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Maximum number of instances in the page, 0 for no limit
+     */
+    final int limit;
+
+    /**
+     * Cursor of the page, null for the first one
+     */
+    final String cursor;
+
+    /**
+     * Interned id of the state instances must be in, if filtering by state
+     */
+    private final int state;
+
+    /**
+     * Whether instances are filtered by state
+     */
+    private final boolean stateFiltered;
+
+    /**
+     * Prefix of the ids of the instances, or null
+     */
+    private final String prefix;
+
+    /**
+     * Regular expression matching the ids of the instances, or null
+     */
+    private final Pattern regex;
+
+    /**
+     * Instances must be last touched at or after this time
+     */
+    private final long touchedAfter;
+
+    /**
+     * Instances must be last touched before this time
+     */
+    private final long touchedBefore;
+
+    /**
+     * Parses the query parameters of an admin request.
+     * 
+     * @param request the admin request
+     * @throws IllegalArgumentException if a parameter is invalid
+     */
+    ListingQuery(Request request) {
+        limit = (int)Math.min(Integer.MAX_VALUE, getLong(request, "limit", 0));
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        cursor = getString(request, "cursor");
+        String stateName = getString(request, "state");
+        stateFiltered = stateName != null;
+        state = stateFiltered ? ScenarioStore.STATE_NAMES.idOf(stateName) : SymbolTable.UNKNOWN;
+        prefix = getString(request, "prefix");
+        String expression = getString(request, "regex");
+        try {
+            regex = expression == null ? null : Pattern.compile(expression);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid regex : " + e.getMessage(), e);
+        }
+        touchedAfter = getLong(request, "touchedAfter", Long.MIN_VALUE);
+        touchedBefore = getLong(request, "touchedBefore", Long.MAX_VALUE);
+    }
+
+    /**
+     * @return true if instances are filtered, false if all instances are listed
+     */
+    boolean isFiltered() {
+        return stateFiltered || prefix != null || regex != null || touchedAfter != Long.MIN_VALUE || touchedBefore != Long.MAX_VALUE;
+    }
+
+    /**
+     * Checks if an instance passes the filters.
+     * 
+     * @param instance the instance id
+     * @param instanceState the interned id of the instance state
+     * @param touched the time the instance was last touched
+     * @return true if the instance should be listed
+     */
+    boolean matches(String instance, int instanceState, long touched) {
+        return (!stateFiltered || instanceState == state)
+            && touched >= touchedAfter && touched < touchedBefore
+            && (prefix == null || instance.startsWith(prefix))
+            && (regex == null || regex.matcher(instance).matches());
+    }
+
+    /**
+     * Wraps a visitor with the filters, so it only receives the instances passing them.
+     * 
+     * @param visitor the visitor of the listed instances
+     * @return the filtering visitor
+     */
+    InstanceVisitor filter(InstanceVisitor visitor) {
+        if (!isFiltered()) {
+            return visitor;
+        }
+        return (instance, instanceState, touched) -> matches(instance, instanceState, touched) && visitor.visit(instance, instanceState, touched);
+    }
+
+    /**
+     * Parses a position of a store scan from a cursor.
+     * 
+     * @param value the cursor, or part of it
+     * @return the position
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    static long parsePosition(String value) {
+        try {
+            long position = Long.parseLong(value);
+            if (position >= 0) {
+                return position;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid cursor : " + value);
+    }
+
+    private static String getString(Request request, String name) {
+        QueryParameter parameter = request.queryParameter(name);
+        return parameter.isPresent() ? parameter.firstValue() : null;
+    }
+
+    private static long getLong(Request request, String name, long defaultValue) {
+        String value = getString(request, name);
+        try {
+            return value == null ? defaultValue : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number : " + value, e);
+        }
+    }
+}
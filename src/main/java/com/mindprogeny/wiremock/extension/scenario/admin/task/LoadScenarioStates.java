@@ -0,0 +1,327 @@
+/*
+ * LoadScenarioStates.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.admin.task;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+import com.github.tomakehurst.wiremock.admin.AdminTask;
+import com.github.tomakehurst.wiremock.admin.model.PathParams;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.core.Admin;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
+
+import wiremock.com.fasterxml.jackson.core.JsonFactory;
+import wiremock.com.fasterxml.jackson.core.JsonParser;
+import wiremock.com.fasterxml.jackson.core.JsonToken;
+import wiremock.com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Admin task seeding the states of many scenario instances at once, reporting how many were loaded and how fast.
+ * <p>
+ * The body is read as it is parsed, never building the whole set of instances in memory, and the instances are handed in
+ * chunks to the common fork join pool, each chunk sizing the store once per scenario for its instances before setting
+ * their states.  The store is also sized for each scenario when it is first met in the body, for the instances of its
+ * group in the binary format, or for the lines left in the body in the json format, an upper bound of its instances.  The
+ * instances are spread over as many lanes as the pool has threads by hash of their scenario and id, the chunks of a lane
+ * being applied one after the other, so an instance given more than once ends up in the state of its last line.
+ * <p>
+ * A body failing to be parsed is rejected with a bad request status, the instances read before the error being loaded
+ * nonetheless, their number being reported in the response.
+ * <p>
+ * Two body formats are accepted:
+ * <ul>
+ * <li>newline delimited json (the default), one <code>{"scenario": "&lt;name&gt;", "instance": "&lt;id&gt;", "state": 
+ * "&lt;state&gt;"}</code> object per line</li>
+ * <li>a compact binary format when the content type is <code>application/octet-stream</code>, made of groups of instances
+ * sharing the same scenario and state, each group being the modified UTF-8 scenario name and state, a 32 bit big endian
+ * instance count and that many modified UTF-8 instance ids (as written by {@link java.io.DataOutputStream})</li>
+ * </ul>
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class LoadScenarioStates implements AdminTask {
+
+    /**
+     * Content type of the binary format
+     */
+    public static final String BINARY_CONTENT_TYPE = "application/octet-stream";
+
+    /**
+     * Number of instances handed to the pool at a time
+     */
+    static final int CHUNK_SIZE = 8192;
+
+    /**
+     * Number of lanes the instances are spread over, applied in parallel
+     */
+    private static final int LANES = ForkJoinPool.getCommonPoolParallelism();
+
+    /**
+     * The Scenario repository
+     */
+    private final ScenarioStore store;
+
+    /**
+     * Factory of the streaming parsers
+     */
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Object Mapper to serialize the statistics
+     */
+    private ObjectMapper jsonMapper = new ObjectMapper();
+
+    /**
+     * @param store the scenario repository to seed
+     */
+    public LoadScenarioStates(ScenarioStore store) {
+        this.store = store;
+    }
+
+    /**
+     * @see com.github.tomakehurst.wiremock.admin.AdminTask#execute(com.github.tomakehurst.wiremock.core.Admin, com.github.tomakehurst.wiremock.http.Request, com.github.tomakehurst.wiremock.admin.model.PathParams)
+     */
+    @Override
+    public ResponseDefinition execute(Admin paramAdmin, Request request, PathParams pathParams) {
+        long start = System.nanoTime();
+        Loader loader = new Loader();
+        boolean binary = request.containsHeader("content-type") 
+                      && request.getHeader("content-type").startsWith(BINARY_CONTENT_TYPE);
+        try {
+            if (binary) {
+                readBinary(request.getBody(), loader);
+            } else {
+                readJson(request.getBody(), loader);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            loader.await();
+            return ResponseDefinitionBuilder.responseDefinition()
+                                            .withStatus(HttpURLConnection.HTTP_BAD_REQUEST)
+                                            .withStatusMessage("Scenario states in incorrect format.")
+                                            .withHeader("content-type", "text/text")
+                                            .withBody((binary 
+                                                      ? "Expected groups of: scenario (UTF), state (UTF), count (int), count x instance (UTF)"
+                                                      : "Expected one object per line of:\n{\"scenario\": \"<scenario name>\", \"instance\": \"<instance id>\", \"state\": \"<state>\"}")
+                                                      + "\nInstances loaded before the error: " + loader.count)
+                                            .build();
+        }
+        long parsed = System.nanoTime();
+        loader.await();
+        long loaded = System.nanoTime();
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("instances", loader.count);
+        statistics.put("chunks", loader.chunks);
+        statistics.put("parseMillis", (parsed - start) / 1_000_000);
+        statistics.put("totalMillis", (loaded - start) / 1_000_000);
+        statistics.put("instancesPerSecond", loaded == start ? 0 : loader.count * 1_000_000_000L / (loaded - start));
+        try {
+            return ResponseDefinitionBuilder.responseDefinition()
+                                            .withStatus(HttpURLConnection.HTTP_OK)
+                                            .withHeader("content-type", "application/json")
+                                            .withBody(jsonMapper.writeValueAsString(statistics))
+                                            .build();
+        } catch (IOException ioe) {
+            return ResponseDefinitionBuilder.responseDefinition()
+                                            .withStatus(HttpURLConnection.HTTP_OK)
+                                            .build();
+        }
+    }
+
+    /**
+     * Reads newline delimited json objects, or any whitespace separated sequence of them, reserving room for each scenario
+     * the first time it is met.
+     */
+    private void readJson(byte[] body, Loader loader) throws IOException {
+        int lines = 1;
+        for (byte b : body) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+        BitSet reserved = new BitSet();
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                int line = parser.getTokenLocation().getLineNr();
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("Expected an object");
+                }
+                String scenario = null;
+                String instance = null;
+                String state = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "scenario" :
+                            scenario = parser.getValueAsString();
+                            break;
+                        case "instance" :
+                            instance = parser.getValueAsString();
+                            break;
+                        case "state" :
+                            state = parser.getValueAsString();
+                            break;
+                        default :
+                            parser.skipChildren();
+                    }
+                }
+                if (scenario == null || instance == null || state == null) {
+                    throw new IllegalArgumentException("Missing scenario, instance or state");
+                }
+                int scenarioId = ScenarioStore.SCENARIO_NAMES.intern(scenario);
+                if (!reserved.get(scenarioId)) {
+                    reserved.set(scenarioId);
+                    store.reserve(scenarioId, Math.max(lines - line + 1, 1));
+                }
+                loader.add(scenarioId, instance, ScenarioStore.STATE_NAMES.intern(state));
+            }
+        }
+    }
+
+    /**
+     * Reads groups of instances sharing a scenario and state, reserving room for each group up front.
+     */
+    private void readBinary(byte[] body, Loader loader) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        while (in.available() > 0) {
+            int scenarioId = ScenarioStore.SCENARIO_NAMES.intern(in.readUTF());
+            int state = ScenarioStore.STATE_NAMES.intern(in.readUTF());
+            int count = in.readInt();
+            if (count < 0) {
+                throw new EOFException("Negative instance count");
+            }
+            store.reserve(scenarioId, count);
+            for (int i = 0; i < count; i++) {
+                loader.add(scenarioId, in.readUTF(), state);
+            }
+        }
+    }
+
+    /**
+     * Collects the instances in chunks, one being filled per lane, handing each full chunk to the pool once the previous
+     * chunk of its lane is applied.
+     */
+    private final class Loader {
+
+        /**
+         * Last chunk handed to the pool for each lane
+         */
+        final CompletableFuture<?>[] lanes = new CompletableFuture<?>[LANES];
+
+        /**
+         * Chunk being filled for each lane
+         */
+        final Chunk[] filling = new Chunk[LANES];
+
+        /**
+         * Number of chunks handed to the pool
+         */
+        int chunks;
+
+        /**
+         * Number of instances read
+         */
+        long count;
+
+        Loader() {
+            Arrays.fill(lanes, CompletableFuture.completedFuture(null));
+        }
+
+        void add(int scenarioId, String instance, int state) {
+            int hash = 31 * scenarioId + instance.hashCode();
+            int lane = ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % LANES;
+            Chunk chunk = filling[lane];
+            if (chunk == null) {
+                chunk = filling[lane] = new Chunk();
+            }
+            chunk.scenarioIds[chunk.size] = scenarioId;
+            chunk.instances[chunk.size] = instance;
+            chunk.states[chunk.size] = state;
+            count++;
+            if (++chunk.size == CHUNK_SIZE) {
+                flush(lane);
+            }
+        }
+
+        void flush(int lane) {
+            Chunk chunk = filling[lane];
+            if (chunk != null && chunk.size > 0) {
+                lanes[lane] = lanes[lane].thenRunAsync(chunk, ForkJoinPool.commonPool());
+                filling[lane] = null;
+                chunks++;
+            }
+        }
+
+        /**
+         * Hands the last chunks to the pool and waits for all of them
+         */
+        void await() {
+            for (int lane = 0; lane < LANES; lane++) {
+                flush(lane);
+            }
+            CompletableFuture.allOf(lanes).join();
+        }
+    }
+
+    /**
+     * A chunk of instances to set the state of.
+     */
+    private final class Chunk implements Runnable {
+
+        final int[] scenarioIds = new int[CHUNK_SIZE];
+        final String[] instances = new String[CHUNK_SIZE];
+        final int[] states = new int[CHUNK_SIZE];
+        int size;
+
+        /**
+         * Reserves room once for the instances of each scenario of the chunk, then sets their states in body order
+         */
+        @Override
+        public void run() {
+            int[] counts = new int[ScenarioStore.SCENARIO_NAMES.size()];
+            for (int i = 0; i < size; i++) {
+                counts[scenarioIds[i]]++;
+            }
+            for (int scenarioId = 0; scenarioId < counts.length; scenarioId++) {
+                if (counts[scenarioId] > 0) {
+                    store.reserve(scenarioId, counts[scenarioId]);
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                store.setState(scenarioIds[i], instances[i], states[i]);
+            }
+        }
+    }
+}
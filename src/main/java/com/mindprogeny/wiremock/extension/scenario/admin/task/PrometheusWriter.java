@@ -0,0 +1,249 @@
+/*
+ * PrometheusWriter.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.admin.task;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.function.ToLongFunction;
+
+import com.mindprogeny.wiremock.extension.scenario.store.EvictionCounters;
+import com.mindprogeny.wiremock.extension.scenario.store.LatencyHistogram;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioMetrics;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
+
+/**
+ * Writes the statistics of a scenario repository in the Prometheus text exposition format, straight to the response
+ * body without building any intermediate representation.
+ * <p>
+ * Instance counts come from the store's counters, only the state distribution requires iterating over the instances.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+final class PrometheusWriter {
+
+    /**
+     * Content type of the Prometheus text exposition format
+     */
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * Prefix of all metric names
+     */
+    private static final String PREFIX = "concurrent_scenarios_";
+
+    /**
+     * Nanoseconds in a second, histogram bounds being exported in seconds
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private PrometheusWriter() {
+    }
+
+    /**
+     * Writes the statistics of all scenarios.
+     * 
+     * @param store the scenario repository
+     * @param out the writer receiving the exposition
+     * @throws IOException if writing fails
+     */
+    static void write(ScenarioStore store, Writer out) throws IOException {
+        int scenarios = ScenarioStore.SCENARIO_NAMES.size();
+
+        header(out, "store_instances", "gauge", "Number of scenario instances in the store");
+        long total = 0;
+        for (int scenarioId = 0; scenarioId < scenarios; scenarioId++) {
+            total += store.countInstances(scenarioId);
+        }
+        out.write(PREFIX);
+        out.write("store_instances ");
+        out.write(Long.toString(total));
+        out.write('\n');
+
+        header(out, "instances", "gauge", "Number of instances of each scenario");
+        for (int scenarioId = 0; scenarioId < scenarios; scenarioId++) {
+            if (store.containsScenario(scenarioId)) {
+                sample(out, "instances", scenarioId, null, store.countInstances(scenarioId));
+            }
+        }
+
+        header(out, "instances_by_state", "gauge", "Number of instances of each scenario in each state");
+        for (int scenarioId = 0; scenarioId < scenarios; scenarioId++) {
+            if (store.containsScenario(scenarioId)) {
+                writeStates(store, scenarioId, out);
+            }
+        }
+
+        header(out, "evictions_total", "counter", "Number of scenario instances expired, evicted or rejected");
+        EvictionCounters evictions = store.getEvictionCounters();
+        eviction(out, "expired", evictions.getExpired());
+        eviction(out, "evicted", evictions.getEvicted());
+        eviction(out, "rejected", evictions.getRejected());
+
+        ScenarioMetrics metrics = store.getMetrics();
+        counter(out, metrics, scenarios, "pattern_misses_total", "Requests not matching the request pattern of a scenario stub",
+                counters -> counters.patternMisses.sum());
+        counter(out, metrics, scenarios, "state_misses_total", "Requests matching a scenario stub pattern but not its required state",
+                counters -> counters.stateMisses.sum());
+        counter(out, metrics, scenarios, "matches_total", "Requests matching a scenario stub pattern and its required state",
+                counters -> counters.matches.sum());
+        counter(out, metrics, scenarios, "transitions_total", "Matches that moved a scenario instance to a new state",
+                counters -> counters.transitions.sum());
+        counter(out, metrics, scenarios, "instances_created_total", "Scenario instances created",
+                counters -> counters.instancesCreated.sum());
+
+        header(out, "match_duration_seconds", "histogram", "Time taken matching requests against scenario stubs");
+        for (int scenarioId = 0; scenarioId < scenarios; scenarioId++) {
+            ScenarioMetrics.Counters counters = metrics.getIfPresent(scenarioId);
+            if (counters != null) {
+                writeHistogram(out, scenarioId, counters.latency);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes a counter of each scenario that was ever matched
+     */
+    private static void counter(Writer out, ScenarioMetrics metrics, int scenarios, String name, String help,
+                                ToLongFunction<ScenarioMetrics.Counters> value) throws IOException {
+        header(out, name, "counter", help);
+        for (int scenarioId = 0; scenarioId < scenarios; scenarioId++) {
+            ScenarioMetrics.Counters counters = metrics.getIfPresent(scenarioId);
+            if (counters != null) {
+                sample(out, name, scenarioId, null, value.applyAsLong(counters));
+            }
+        }
+    }
+
+    /**
+     * Writes the number of instances of a scenario in each state
+     */
+    private static void writeStates(ScenarioStore store, int scenarioId, Writer out) throws IOException {
+        int[][] counts = {new int[ScenarioStore.STATE_NAMES.size()]};
+        store.forEachInstance(scenarioId, (instance, state) -> {
+            if (state >= counts[0].length) {
+                counts[0] = Arrays.copyOf(counts[0], state + 1);
+            }
+            counts[0][state]++;
+        });
+        for (int state = 0; state < counts[0].length; state++) {
+            if (counts[0][state] > 0) {
+                sample(out, "instances_by_state", scenarioId, ScenarioStore.STATE_NAMES.nameOf(state), counts[0][state]);
+            }
+        }
+    }
+
+    /**
+     * Writes the cumulative buckets, sum and count of a scenario's match duration histogram
+     */
+    private static void writeHistogram(Writer out, int scenarioId, LatencyHistogram latency) throws IOException {
+        long[] counts = latency.getCumulativeCounts();
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+            out.write(PREFIX);
+            out.write("match_duration_seconds_bucket{");
+            scenarioLabel(out, scenarioId);
+            out.write(",le=\"");
+            out.write(i == LatencyHistogram.BUCKETS - 1 ? "+Inf" : Double.toString((1L << i) / NANOS_PER_SECOND));
+            out.write("\"} ");
+            out.write(Long.toString(counts[i]));
+            out.write('\n');
+        }
+        out.write(PREFIX);
+        out.write("match_duration_seconds_sum{");
+        scenarioLabel(out, scenarioId);
+        out.write("} ");
+        out.write(Double.toString(latency.getSum() / NANOS_PER_SECOND));
+        out.write('\n');
+        out.write(PREFIX);
+        out.write("match_duration_seconds_count{");
+        scenarioLabel(out, scenarioId);
+        out.write("} ");
+        out.write(Long.toString(counts[LatencyHistogram.BUCKETS - 1]));
+        out.write('\n');
+    }
+
+    private static void header(Writer out, String name, String type, String help) throws IOException {
+        out.write("# HELP ");
+        out.write(PREFIX);
+        out.write(name);
+        out.write(' ');
+        out.write(help);
+        out.write("\n# TYPE ");
+        out.write(PREFIX);
+        out.write(name);
+        out.write(' ');
+        out.write(type);
+        out.write('\n');
+    }
+
+    private static void sample(Writer out, String name, int scenarioId, String state, long value) throws IOException {
+        out.write(PREFIX);
+        out.write(name);
+        out.write('{');
+        scenarioLabel(out, scenarioId);
+        if (state != null) {
+            out.write(",state=\"");
+            escape(out, state);
+            out.write('"');
+        }
+        out.write("} ");
+        out.write(Long.toString(value));
+        out.write('\n');
+    }
+
+    private static void eviction(Writer out, String reason, long value) throws IOException {
+        out.write(PREFIX);
+        out.write("evictions_total{reason=\"");
+        out.write(reason);
+        out.write("\"} ");
+        out.write(Long.toString(value));
+        out.write('\n');
+    }
+
+    private static void scenarioLabel(Writer out, int scenarioId) throws IOException {
+        out.write("scenario=\"");
+        escape(out, ScenarioStore.SCENARIO_NAMES.nameOf(scenarioId));
+        out.write('"');
+    }
+
+    /**
+     * Writes a label value, escaping backslashes, double quotes and line feeds as required by the format
+     */
+    private static void escape(Writer out, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '\\' :
+                out.write("\\\\");
+                break;
+            case '"' :
+                out.write("\\\"");
+                break;
+            case '\n' :
+                out.write("\\n");
+                break;
+            default :
+                out.write(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * ScenarioJsonWriter.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.admin.task;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
+import com.mindprogeny.wiremock.extension.scenario.store.SymbolTable;
+import com.mindprogeny.wiremock.extension.scenario.store.TransitionTrace;
+
+import wiremock.com.fasterxml.jackson.core.JsonFactory;
+import wiremock.com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Serializes scenario instances and their states to JSON straight from the store iteration, so listing a store doesn't
+ * build a copy of it as maps nor as a string.
+ * <p>
+ * Instances are written as they are iterated, so the output is as weakly consistent with concurrent updates as the
+ * store's iteration.  As admin tasks return a {@link com.github.tomakehurst.wiremock.http.ResponseDefinition}, the
+ * output still has to be buffered, but as UTF-8 bytes given as is to the response body.
+ * <p>
+ * Listings are paginated and filtered by a {@link ListingQuery}.  The cursor of a listing of all scenarios is the id of
+ * the scenario to resume from followed by the store cursor within that scenario, separated by a colon.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+final class ScenarioJsonWriter {
+
+    /**
+     * Shared (thread safe) JSON generator factory
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private ScenarioJsonWriter() {
+    }
+
+    /**
+     * Writes the number of instances of a scenario, as an object holding the scenario name and the count.
+     * 
+     * @param scenario the scenario name
+     * @param instances the number of instances of the scenario
+     * @param out the stream to write the UTF-8 encoded JSON to
+     * @throws IOException if the JSON can't be generated
+     */
+    static void writeCount(String scenario, int instances, OutputStream out) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("scenario", scenario);
+            generator.writeNumberField("instances", instances);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes a page of all scenarios, as an object of scenario objects holding the state name of each instance id.  When
+     * filtering, scenarios without any matching instance are left out.
+     * 
+     * @param store the scenario repository
+     * @param query the pagination and filters of the listing
+     * @param out the stream to write the UTF-8 encoded JSON to
+     * @return the cursor of the next page, or null if this is the last one
+     * @throws IOException if the JSON can't be generated
+     * @throws IllegalArgumentException if the query cursor is invalid
+     */
+    static String writeScenarios(ScenarioStore store, ListingQuery query, OutputStream out) throws IOException {
+        int firstScenarioId = 0;
+        long position = 0;
+        if (query.cursor != null) {
+            int separator = query.cursor.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor : " + query.cursor);
+            }
+            firstScenarioId = (int)Math.min(Integer.MAX_VALUE, ListingQuery.parsePosition(query.cursor.substring(0, separator)));
+            position = ListingQuery.parsePosition(query.cursor.substring(separator + 1));
+        }
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartObject();
+            int remaining = query.limit;
+            for (int scenarioId = firstScenarioId; scenarioId < ScenarioStore.SCENARIO_NAMES.size(); scenarioId++, position = 0) {
+                if (!store.containsScenario(scenarioId)) {
+                    continue;
+                }
+                String scenario = ScenarioStore.SCENARIO_NAMES.nameOf(scenarioId);
+                int[] taken = new int[1];
+                long next;
+                try {
+                    if (!query.isFiltered()) {
+                        generator.writeObjectFieldStart(scenario);
+                    }
+                    next = store.scanInstances(scenarioId, position, remaining, query.filter((instance, state, touched) -> {
+                        try {
+                            if (taken[0]++ == 0 && query.isFiltered()) {
+                                generator.writeObjectFieldStart(scenario);
+                            }
+                            generator.writeStringField(instance, ScenarioStore.STATE_NAMES.nameOf(state));
+                            return true;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                if (taken[0] > 0 || !query.isFiltered()) {
+                    generator.writeEndObject();
+                }
+                if (remaining > 0 && (remaining -= taken[0]) == 0) {
+                    generator.writeEndObject();
+                    if (next != 0) {
+                        return scenarioId + ":" + next;
+                    }
+                    for (int following = scenarioId + 1; following < ScenarioStore.SCENARIO_NAMES.size(); following++) {
+                        if (store.containsScenario(following)) {
+                            return following + ":0";
+                        }
+                    }
+                    return null;
+                }
+            }
+            generator.writeEndObject();
+        }
+        return null;
+    }
+
+    /**
+     * Writes a page of a scenario, as an object holding the state name of each instance id, or as null if the scenario
+     * doesn't exist.
+     * 
+     * @param store the scenario repository
+     * @param scenario the scenario name
+     * @param query the pagination and filters of the listing
+     * @param out the stream to write the UTF-8 encoded JSON to
+     * @return the cursor of the next page, or null if this is the last one
+     * @throws IOException if the JSON can't be generated
+     * @throws IllegalArgumentException if the query cursor is invalid
+     */
+    static String writeScenario(ScenarioStore store, String scenario, ListingQuery query, OutputStream out) throws IOException {
+        long position = query.cursor == null ? 0 : ListingQuery.parsePosition(query.cursor);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            int scenarioId = ScenarioStore.SCENARIO_NAMES.idOf(scenario);
+            if (scenarioId == SymbolTable.UNKNOWN || !store.containsScenario(scenarioId)) {
+                generator.writeNull();
+                return null;
+            }
+            generator.writeStartObject();
+            long next;
+            try {
+                next = store.scanInstances(scenarioId, position, query.limit, query.filter((instance, state, touched) -> {
+                    try {
+                        generator.writeStringField(instance, ScenarioStore.STATE_NAMES.nameOf(state));
+                        return true;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndObject();
+            return next == 0 ? null : Long.toString(next);
+        }
+    }
+
+    /**
+     * Writes the traced transitions of a scenario, from the oldest to the latest, as an array of objects holding the
+     * time, instance id, states and stub of each transition.
+     * 
+     * @param trace the transition trace of the scenario
+     * @param instance the instance id to restrict the transitions to, or null for all instances
+     * @param out the stream to write the UTF-8 encoded JSON to
+     * @throws IOException if the JSON can't be generated
+     */
+    static void writeTrace(TransitionTrace trace, String instance, OutputStream out) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartArray();
+            try {
+                trace.forEach(transition -> {
+                    if (instance != null && !instance.equals(transition.instance)) {
+                        return;
+                    }
+                    try {
+                        generator.writeStartObject();
+                        generator.writeNumberField("timestamp", transition.timestamp);
+                        generator.writeStringField("instance", transition.instance);
+                        if (transition.fromState == SymbolTable.UNKNOWN) {
+                            generator.writeNullField("from");
+                        } else {
+                            generator.writeStringField("from", ScenarioStore.STATE_NAMES.nameOf(transition.fromState));
+                        }
+                        generator.writeStringField("to", ScenarioStore.STATE_NAMES.nameOf(transition.toState));
+                        generator.writeStringField("stub", transition.stub);
+                        generator.writeEndObject();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+        }
+    }
+}
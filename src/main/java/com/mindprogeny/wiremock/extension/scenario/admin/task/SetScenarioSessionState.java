@@ -26,7 +26,7 @@ import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
 import com.github.tomakehurst.wiremock.core.Admin;
 import com.github.tomakehurst.wiremock.http.Request;
 import com.github.tomakehurst.wiremock.http.ResponseDefinition;
-import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioExtension;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
 
 /**
  * Admin task allowing to set the current state for a scenario's instance.
@@ -42,12 +42,24 @@ import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioExtension;
  */
 public class SetScenarioSessionState implements AdminTask {
 
+    /**
+     * The Scenario repository
+     */
+    private final ScenarioStore store;
+
+    /**
+     * @param store the scenario repository to update
+     */
+    public SetScenarioSessionState(ScenarioStore store) {
+        this.store = store;
+    }
+
     /**
      * @see com.github.tomakehurst.wiremock.admin.AdminTask#execute(com.github.tomakehurst.wiremock.core.Admin, com.github.tomakehurst.wiremock.http.Request, com.github.tomakehurst.wiremock.admin.model.PathParams)
      */
     @Override
     public ResponseDefinition execute(Admin admin, Request request, PathParams pathParams) {
-        ConcurrentScenarioExtension.setScenarioState(pathParams.get("scenario"), pathParams.get("instance"), pathParams.get("state"));
+        store.setState(pathParams.get("scenario"), pathParams.get("instance"), pathParams.get("state"));
         return ResponseDefinitionBuilder.responseDefinition()
                                         .withStatus(HttpURLConnection.HTTP_OK)
                                         .build();
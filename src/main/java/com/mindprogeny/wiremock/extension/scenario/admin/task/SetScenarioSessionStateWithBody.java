@@ -22,8 +22,6 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.HttpURLConnection;
-import java.util.Map;
-import java.util.Map.Entry;
 
 import com.github.tomakehurst.wiremock.admin.AdminTask;
 import com.github.tomakehurst.wiremock.admin.model.PathParams;
@@ -31,9 +29,12 @@ import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
 import com.github.tomakehurst.wiremock.core.Admin;
 import com.github.tomakehurst.wiremock.http.Request;
 import com.github.tomakehurst.wiremock.http.ResponseDefinition;
-import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioExtension;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
 
-import wiremock.com.fasterxml.jackson.databind.ObjectMapper;
+import wiremock.com.fasterxml.jackson.core.JsonFactory;
+import wiremock.com.fasterxml.jackson.core.JsonParseException;
+import wiremock.com.fasterxml.jackson.core.JsonParser;
+import wiremock.com.fasterxml.jackson.core.JsonToken;
 
 /**
  * Admin task allowing to set the current state for a scenario's instance, taking the parameters as a json body.
@@ -42,30 +43,48 @@ import wiremock.com.fasterxml.jackson.databind.ObjectMapper;
  * <p>
  * If the instance hasn't been triggered yet (no scenario stub for that particular instance has been accessed yet), a new scenario 
  * instance is created and initialized with the desired state.
+ * <p>
+ * The body is parsed as a stream, each instance state being set as soon as it is read, so instances read before a
+ * format error are still set.
  * 
  * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
  * @since 25 Apr 2018
  *
  */
 public class SetScenarioSessionStateWithBody implements AdminTask {
+
+    /**
+     * The Scenario repository
+     */
+    private final ScenarioStore store;
+
+    /**
+     * @param store the scenario repository to update
+     */
+    public SetScenarioSessionStateWithBody(ScenarioStore store) {
+        this.store = store;
+    }
     
     /**
-     * Object Mapper to deserialize maps
+     * Factory of the streaming parsers
      */
-    private ObjectMapper jsonMapper = new ObjectMapper();
+    private final JsonFactory jsonFactory = new JsonFactory();
 
     /**
      * @see com.github.tomakehurst.wiremock.admin.AdminTask#execute(com.github.tomakehurst.wiremock.core.Admin, com.github.tomakehurst.wiremock.http.Request, com.github.tomakehurst.wiremock.admin.model.PathParams)
      */
     @Override
-    @SuppressWarnings("unchecked")
     public ResponseDefinition execute(Admin paramAdmin, Request request, PathParams pathParams) {
-        try {
-            Map<String, Map<String, String>> params = jsonMapper.readValue(request.getBodyAsString(), Map.class);
-            for (String scenario : params.keySet()) {
-            	for (Entry<String,String> instanceState: params.get(scenario).entrySet()) {
-            		ConcurrentScenarioExtension.setScenarioState(scenario, instanceState.getKey(), instanceState.getValue());;
-            	}
+        try (JsonParser parser = jsonFactory.createParser(request.getBody())) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                int scenarioId = ScenarioStore.SCENARIO_NAMES.intern(parser.getCurrentName());
+                expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String instance = parser.getCurrentName();
+                    expect(parser, parser.nextToken(), JsonToken.VALUE_STRING);
+                    store.setState(scenarioId, instance, ScenarioStore.STATE_NAMES.intern(parser.getText()));
+                }
             }
             return ResponseDefinitionBuilder.responseDefinition()
                                             .withStatus(HttpURLConnection.HTTP_OK)
@@ -81,4 +100,13 @@ public class SetScenarioSessionStateWithBody implements AdminTask {
                                             .build();
         }
     }
+
+    /**
+     * @throws JsonParseException if the token read is not the expected one
+     */
+    private static void expect(JsonParser parser, JsonToken token, JsonToken expected) throws JsonParseException {
+        if (token != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but got " + token);
+        }
+    }
 }
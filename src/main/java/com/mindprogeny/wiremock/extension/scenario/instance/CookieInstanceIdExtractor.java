@@ -0,0 +1,56 @@
+/*
+ * CookieInstanceIdExtractor.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.instance;
+
+import com.github.tomakehurst.wiremock.http.Cookie;
+import com.github.tomakehurst.wiremock.http.Request;
+
+/**
+ * Extracts the instance id from the value of a named cookie.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class CookieInstanceIdExtractor implements InstanceIdExtractor {
+
+    /**
+     * Name of the cookie holding the instance id
+     */
+    private final String cookieName;
+
+    /**
+     * @param cookieName name of the cookie holding the instance id
+     */
+    public CookieInstanceIdExtractor(String cookieName) {
+        this.cookieName = cookieName;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.instance.InstanceIdExtractor#extract(com.github.tomakehurst.wiremock.http.Request)
+     */
+    @Override
+    public String extract(Request request) {
+        Cookie cookie = request.getCookies().get(cookieName);
+        if (cookie != null) {
+            return cookie.getValue();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * InstanceIdExtractor.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.instance;
+
+import com.github.tomakehurst.wiremock.http.Request;
+
+import wiremock.org.custommonkey.xmlunit.exceptions.ConfigurationException;
+
+/**
+ * Extracts the scenario instance id from a request.
+ * <p>
+ * Extractors are built once per stub from its "scenarioInstanceIdentifier" (the source of the instance id) and
+ * "scenarioInstanceIdentifierPattern" parameters and are expected to be thread safe.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public interface InstanceIdExtractor {
+
+    /**
+     * Extractor used when no instance identifier source is configured, always resolving to the default instance.
+     */
+    InstanceIdExtractor NONE = request -> null;
+
+    /**
+     * Gets the instance id from the request.
+     * 
+     * @param request the request to search in
+     * @return the found instance id, or null if the request doesn't hold one
+     */
+    String extract(Request request);
+
+    /**
+     * Builds the extractor for the configured source of an instance id and the pattern to search for.
+     * <p>
+     * if the source is a query parameter or a cookie, the pattern is expected to be the exact match of the parameter or cookie name.
+     * 
+     * @param instanceIdentifier source the instance id should be looked for
+     * @param instanceIdentifierPattern the pattern to search for
+     * @return the extractor for the given source
+     * @throws ConfigurationException if the source is unknown
+     */
+    static InstanceIdExtractor forSource(String instanceIdentifier, String instanceIdentifierPattern) {
+        if (instanceIdentifier == null) {
+            return NONE;
+        }
+        switch(instanceIdentifier) {
+        case "url" :
+            if (instanceIdentifierPattern == null) {
+                return NONE;
+            }
+            return new UrlRegexInstanceIdExtractor(instanceIdentifierPattern);
+        case "queryParameter" :
+            return new QueryParameterInstanceIdExtractor(instanceIdentifierPattern);
+        case "cookie" :
+            return new CookieInstanceIdExtractor(instanceIdentifierPattern);
+        default :
+            throw new ConfigurationException("Unknown instance identifier source : " + instanceIdentifier);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * QueryParameterInstanceIdExtractor.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.instance;
+
+import com.github.tomakehurst.wiremock.http.QueryParameter;
+import com.github.tomakehurst.wiremock.http.Request;
+
+/**
+ * Extracts the instance id from the first value of a named query parameter.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class QueryParameterInstanceIdExtractor implements InstanceIdExtractor {
+
+    /**
+     * Name of the query parameter holding the instance id
+     */
+    private final String parameterName;
+
+    /**
+     * @param parameterName name of the query parameter holding the instance id
+     */
+    public QueryParameterInstanceIdExtractor(String parameterName) {
+        this.parameterName = parameterName;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.instance.InstanceIdExtractor#extract(com.github.tomakehurst.wiremock.http.Request)
+     */
+    @Override
+    public String extract(Request request) {
+        QueryParameter parameter = request.queryParameter(parameterName);
+        if (parameter != null) {
+            return parameter.firstValue();
+        }
+        return null;
+    }
+}
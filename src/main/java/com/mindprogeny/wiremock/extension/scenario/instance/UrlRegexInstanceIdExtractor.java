@@ -0,0 +1,57 @@
+/*
+ * UrlRegexInstanceIdExtractor.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.instance;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.github.tomakehurst.wiremock.http.Request;
+
+/**
+ * Extracts the instance id from the first capturing group of a regular expression matching the whole request url.
+ * <p>
+ * The expression is compiled once, only its {@link Matcher} being created for each request.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class UrlRegexInstanceIdExtractor implements InstanceIdExtractor {
+
+    /**
+     * The compiled url pattern
+     */
+    private final Pattern pattern;
+
+    /**
+     * @param urlPattern regular expression matching the url, with the instance id as its first group
+     */
+    public UrlRegexInstanceIdExtractor(String urlPattern) {
+        this.pattern = Pattern.compile(urlPattern);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.instance.InstanceIdExtractor#extract(com.github.tomakehurst.wiremock.http.Request)
+     */
+    @Override
+    public String extract(Request request) {
+        Matcher urlMatcher = pattern.matcher(request.getUrl());
+        return urlMatcher.matches() ? urlMatcher.group(1) : null;
+    }
+}
@@ -0,0 +1,605 @@
+/*
+ * ClusteredScenarioStore.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.ref.WeakReference;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjIntConsumer;
+
+import com.github.tomakehurst.wiremock.common.Notifier;
+import com.github.tomakehurst.wiremock.common.Slf4jNotifier;
+
+/**
+ * Scenario store shared by a cluster of WireMock servers, each instance being owned by a single node that holds its
+ * state, so requests of a session can be served by any node.
+ * <p>
+ * Instances are assigned to their owner by consistent hashing of their scenario name and instance id over a ring of
+ * virtual nodes.  Operations on the instances owned by the local node go straight to its local store, the others are
+ * sent to their owner through its admin api, as served by the {@link #ROUTE} routes of its
+ * {@code ConcurrentScenarioManager}.  All nodes must be given the same list of nodes.
+ * <p>
+ * A request is matched against the view returned by {@link #forRequest(Object)}, which remembers the state of each remote
+ * instance it reads or transitions until the thread matches another request: a transition sends both the required and
+ * the new state in a single call, the owner returning the state the instance is in when it isn't transitioned, and the
+ * other stubs of the request are checked against that state without calling the owner again.
+ * <p>
+ * Deleting a scenario or all scenarios is applied to every node.  Listings, counts, limits and metrics are those of the
+ * local node, each node being given the same stubs, and so the same limits: the listing, metrics and Prometheus
+ * endpoints of a node only show the instances it owns, metrics being summed over the nodes by whoever scrapes them all,
+ * while {@link #countClusterInstances(int)} asks every node for its count.
+ * <p>
+ * A node that can't be reached is logged and treated as holding no state: its instances read as unknown and their
+ * transitions fail, so the requests for them miss their stubs rather than fail.  It then isn't called for
+ * {@link #RETRY_DELAY} milliseconds, after which a single call probes it while the others keep failing fast.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class ClusteredScenarioStore implements ScenarioStore {
+
+    /**
+     * Admin api path of the operations sent by the nodes to each other
+     */
+    public static final String ROUTE = "/concurrent-scenarios-cluster";
+
+    /**
+     * Number of virtual nodes of each node on the hash ring
+     */
+    private static final int VIRTUAL_NODES = 64;
+
+    /**
+     * Timeout of the connection to another node, in milliseconds
+     */
+    private static final int CONNECT_TIMEOUT = 1000;
+
+    /**
+     * Timeout of a response from another node, in milliseconds
+     */
+    private static final int READ_TIMEOUT = 5000;
+
+    /**
+     * Time an unreachable node isn't called for, in milliseconds
+     */
+    static final long RETRY_DELAY = 5000;
+
+    /**
+     * Notifier of the nodes that can't be reached
+     */
+    private static final Notifier NOTIFIER = new Slf4jNotifier(false);
+
+    /**
+     * The store of the instances owned by the local node
+     */
+    private final ScenarioStore local;
+
+    /**
+     * Admin api urls of the other nodes
+     */
+    private final List<String> remotes;
+
+    /**
+     * Positions of the virtual nodes on the hash ring, in increasing order
+     */
+    private final int[] ring;
+
+    /**
+     * Admin api url of the owner of each virtual node, null for the local node
+     */
+    private final String[] owners;
+
+    /**
+     * Time each other node, by admin api url, can be called again at after failing to be reached, 0 if reachable
+     */
+    private final Map<String, AtomicLong> retries;
+
+    /**
+     * The view each thread matches its current request against
+     */
+    private final ThreadLocal<RequestView> views;
+
+    /**
+     * States of the remote instances read or transitioned while matching the current request, by scenario and instance,
+     * null if not a request view
+     */
+    private final Map<String, Integer> states;
+
+    /**
+     * @param local the store of the instances owned by the local node
+     * @param nodes the base urls of all the nodes of the cluster, such as http://host:8080, the same on every node
+     * @param self the base url of the local node, one of the nodes
+     * @throws IllegalArgumentException if the local node is not one of the nodes
+     */
+    public ClusteredScenarioStore(ScenarioStore local, List<String> nodes, String self) {
+        if (!nodes.contains(self)) {
+            throw new IllegalArgumentException("Local node " + self + " is not one of the cluster nodes " + nodes);
+        }
+        this.local = local;
+        this.remotes = new ArrayList<>();
+        this.retries = new HashMap<>();
+        this.views = new ThreadLocal<>();
+        this.states = null;
+        long[] virtualNodes = new long[nodes.size() * VIRTUAL_NODES];
+        for (int node = 0; node < nodes.size(); node++) {
+            if (!nodes.get(node).equals(self)) {
+                remotes.add(nodes.get(node) + "/__admin" + ROUTE);
+                retries.put(nodes.get(node) + "/__admin" + ROUTE, new AtomicLong());
+            }
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                // position in the upper half, node index in the lower one, so sorting keeps both together
+                virtualNodes[node * VIRTUAL_NODES + i] = ((long)hash(nodes.get(node) + "#" + i) << 32) | node;
+            }
+        }
+        Arrays.sort(virtualNodes);
+        ring = new int[virtualNodes.length];
+        owners = new String[virtualNodes.length];
+        for (int i = 0; i < virtualNodes.length; i++) {
+            ring[i] = (int)(virtualNodes[i] >> 32);
+            String node = nodes.get((int)virtualNodes[i]);
+            owners[i] = node.equals(self) ? null : node + "/__admin" + ROUTE;
+        }
+    }
+
+    /**
+     * Creates a request view of a cluster store, sharing everything but the remembered states.
+     * 
+     * @param cluster the cluster store
+     */
+    private ClusteredScenarioStore(ClusteredScenarioStore cluster) {
+        this.local = cluster.local;
+        this.remotes = cluster.remotes;
+        this.ring = cluster.ring;
+        this.owners = cluster.owners;
+        this.retries = cluster.retries;
+        this.views = cluster.views;
+        this.states = new HashMap<>();
+    }
+
+    /**
+     * Gets the store an admin operation is to be applied on: the local store of a clustered store, as the operations
+     * of the {@link #ROUTE} routes come from other nodes, or the store itself if not clustered.
+     * 
+     * @param store the store given to the admin api
+     * @return the store to apply the operations of other nodes on
+     */
+    public static ScenarioStore localStoreOf(ScenarioStore store) {
+        return store instanceof ClusteredScenarioStore ? ((ClusteredScenarioStore)store).local : store;
+    }
+
+    /**
+     * Finds the owner of an instance, the first virtual node at or after its position on the ring.
+     * 
+     * @return the admin api url of the owner, or null if owned by the local node
+     */
+    private String ownerOf(int scenarioId, String instance) {
+        int position = hash(SCENARIO_NAMES.nameOf(scenarioId) + '\0' + instance);
+        int index = Arrays.binarySearch(ring, position);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == ring.length ? 0 : index];
+    }
+
+    /**
+     * @return the state of a remote instance remembered by a request view, or null if not read yet
+     */
+    private Integer recall(int scenarioId, String instance) {
+        return states == null ? null : states.get(scenarioId + "\0" + instance);
+    }
+
+    /**
+     * Remembers the state of a remote instance, if a request view, forgetting it if not known
+     */
+    private void remember(int scenarioId, String instance, Integer state) {
+        if (states != null) {
+            if (state == null) {
+                states.remove(scenarioId + "\0" + instance);
+            } else {
+                states.put(scenarioId + "\0" + instance, state);
+            }
+        }
+    }
+
+    /**
+     * Spreads a string hash code over the ring (murmur3 finalizer)
+     */
+    private static int hash(String key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#getOrInitialize(int, java.lang.String)
+     */
+    @Override
+    public int getOrInitialize(int scenarioId, String instance) {
+        String owner = ownerOf(scenarioId, instance);
+        if (owner == null) {
+            return local.getOrInitialize(scenarioId, instance);
+        }
+        Integer known = recall(scenarioId, instance);
+        if (known != null && known != SymbolTable.UNKNOWN) {
+            return known;
+        }
+        Response response = call(owner, "/transition", "POST", "scenario", SCENARIO_NAMES.nameOf(scenarioId), "instance", instance);
+        int state = response.status == HttpURLConnection.HTTP_OK ? STATE_NAMES.intern(response.body) : SymbolTable.UNKNOWN;
+        remember(scenarioId, instance, state);
+        return state;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#getState(int, java.lang.String)
+     */
+    @Override
+    public int getState(int scenarioId, String instance) {
+        String owner = ownerOf(scenarioId, instance);
+        if (owner == null) {
+            return local.getState(scenarioId, instance);
+        }
+        Integer known = recall(scenarioId, instance);
+        if (known != null) {
+            return known;
+        }
+        Response response = call(owner, "/state", "GET", "scenario", SCENARIO_NAMES.nameOf(scenarioId), "instance", instance);
+        int state = response.status == HttpURLConnection.HTTP_OK ? STATE_NAMES.intern(response.body) : SymbolTable.UNKNOWN;
+        remember(scenarioId, instance, state);
+        return state;
+    }
+
+    /**
+     * The transition is applied atomically by the owner of the instance.  A request view doesn't call the owner of an
+     * instance it remembers in another state than the required one.
+     * 
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#transition(int, java.lang.String, int, int)
+     */
+    @Override
+    public boolean transition(int scenarioId, String instance, int requiredState, int newState) {
+        String owner = ownerOf(scenarioId, instance);
+        if (owner == null) {
+            return local.transition(scenarioId, instance, requiredState, newState);
+        }
+        Integer known = recall(scenarioId, instance);
+        if (known != null && requiredState != SymbolTable.UNKNOWN && known != requiredState 
+                && (known != SymbolTable.UNKNOWN || requiredState != STARTED)) {
+            return false;
+        }
+        Response response = call(owner, "/transition", "POST", "scenario", SCENARIO_NAMES.nameOf(scenarioId), "instance", instance,
+                                 "required", requiredState == SymbolTable.UNKNOWN ? null : STATE_NAMES.nameOf(requiredState),
+                                 "new", newState == SymbolTable.UNKNOWN ? null : STATE_NAMES.nameOf(newState));
+        if (response.status == HttpURLConnection.HTTP_OK) {
+            int state = newState != SymbolTable.UNKNOWN ? newState : requiredState;
+            remember(scenarioId, instance, state == SymbolTable.UNKNOWN ? null : state);
+            return true;
+        }
+        // the owner answers a failed transition with the state the instance is in
+        remember(scenarioId, instance, response.status == HttpURLConnection.HTTP_NOT_FOUND && !response.body.isEmpty() 
+                                       ? STATE_NAMES.intern(response.body) 
+                                       : SymbolTable.UNKNOWN);
+        return false;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#setState(int, java.lang.String, int)
+     */
+    @Override
+    public void setState(int scenarioId, String instance, int state) {
+        String owner = ownerOf(scenarioId, instance);
+        if (owner == null) {
+            local.setState(scenarioId, instance, state);
+        } else {
+            boolean set = call(owner, "/state", "PUT", "scenario", SCENARIO_NAMES.nameOf(scenarioId), "instance", instance,
+                               "state", STATE_NAMES.nameOf(state)).status == HttpURLConnection.HTTP_OK;
+            remember(scenarioId, instance, set ? state : null);
+        }
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#clearInstance(int, java.lang.String)
+     */
+    @Override
+    public boolean clearInstance(int scenarioId, String instance) {
+        String owner = ownerOf(scenarioId, instance);
+        if (owner == null) {
+            return local.clearInstance(scenarioId, instance);
+        }
+        boolean cleared = call(owner, "/instance", "DELETE", "scenario", SCENARIO_NAMES.nameOf(scenarioId), "instance", instance)
+                              .status == HttpURLConnection.HTTP_OK;
+        remember(scenarioId, instance, cleared ? SymbolTable.UNKNOWN : null);
+        return cleared;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#clearScenario(int)
+     */
+    @Override
+    public boolean clearScenario(int scenarioId) {
+        boolean cleared = local.clearScenario(scenarioId);
+        for (String remote : remotes) {
+            cleared |= call(remote, "/scenario", "DELETE", "scenario", SCENARIO_NAMES.nameOf(scenarioId))
+                           .status == HttpURLConnection.HTTP_OK;
+        }
+        return cleared;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#clearAll()
+     */
+    @Override
+    public void clearAll() {
+        local.clearAll();
+        for (String remote : remotes) {
+            call(remote, "/all", "DELETE");
+        }
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#containsScenario(int)
+     */
+    @Override
+    public boolean containsScenario(int scenarioId) {
+        return local.containsScenario(scenarioId);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#countInstances(int)
+     */
+    @Override
+    public int countInstances(int scenarioId) {
+        return local.countInstances(scenarioId);
+    }
+
+    /**
+     * Nodes that can't be reached are left out of the count.
+     * 
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#countClusterInstances(int)
+     */
+    @Override
+    public int countClusterInstances(int scenarioId) {
+        int count = local.countInstances(scenarioId);
+        for (String remote : remotes) {
+            Response response = call(remote, "/count", "GET", "scenario", SCENARIO_NAMES.nameOf(scenarioId));
+            if (response.status == HttpURLConnection.HTTP_OK) {
+                count += Integer.parseInt(response.body.trim());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#forEachInstance(int, java.util.function.ObjIntConsumer)
+     */
+    @Override
+    public void forEachInstance(int scenarioId, ObjIntConsumer<String> action) {
+        local.forEachInstance(scenarioId, action);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#scanInstances(int, long, int, com.mindprogeny.wiremock.extension.scenario.store.InstanceVisitor)
+     */
+    @Override
+    public long scanInstances(int scenarioId, long cursor, int limit, InstanceVisitor visitor) {
+        return local.scanInstances(scenarioId, cursor, limit, visitor);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#expireAfter(int, long, long)
+     */
+    @Override
+    public void expireAfter(int scenarioId, long timeToLive, long idleTimeout) {
+        local.expireAfter(scenarioId, timeToLive, idleTimeout);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#evictExpired(long)
+     */
+    @Override
+    public int evictExpired(long now) {
+        return local.evictExpired(now);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#limitInstances(int, int, com.mindprogeny.wiremock.extension.scenario.store.EvictionPolicy)
+     */
+    @Override
+    public void limitInstances(int scenarioId, int maxInstances, EvictionPolicy policy) {
+        local.limitInstances(scenarioId, maxInstances, policy);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#limitInstances(int, com.mindprogeny.wiremock.extension.scenario.store.EvictionPolicy)
+     */
+    @Override
+    public void limitInstances(int maxInstances, EvictionPolicy policy) {
+        local.limitInstances(maxInstances, policy);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#reserve(int, int)
+     */
+    @Override
+    public void reserve(int scenarioId, int expectedInstances) {
+        local.reserve(scenarioId, expectedInstances);
+    }
+
+    /**
+     * Instances owned by other nodes are not local, their state being checked by their owner when transitioning them,
+     * unless remembered by a request view, which reads them without calling their owner.
+     * 
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#isLocal(int, java.lang.String)
+     */
+    @Override
+    public boolean isLocal(int scenarioId, String instance) {
+        return ownerOf(scenarioId, instance) == null || recall(scenarioId, instance) != null;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#forRequest(java.lang.Object)
+     */
+    @Override
+    public ScenarioStore forRequest(Object request) {
+        RequestView view = views.get();
+        if (view == null || view.request.get() != request) {
+            view = new RequestView(request, new ClusteredScenarioStore(this));
+            views.set(view);
+        }
+        return view.store;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#setRemovalListener(java.util.function.ObjIntConsumer)
+     */
+    @Override
+    public void setRemovalListener(ObjIntConsumer<String> listener) {
+        local.setRemovalListener(listener);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#getEvictionCounters()
+     */
+    @Override
+    public EvictionCounters getEvictionCounters() {
+        return local.getEvictionCounters();
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#getMetrics()
+     */
+    @Override
+    public ScenarioMetrics getMetrics() {
+        return local.getMetrics();
+    }
+
+    /**
+     * Sends an operation to another node, reading the whole response so the connection can be reused.  A node that
+     * failed to be reached isn't called until {@link #RETRY_DELAY} has elapsed.
+     * 
+     * @param node the admin api url of the node
+     * @param operation the operation path
+     * @param method the http method
+     * @param parameters the query parameter names and values, null values being left out
+     * @return the response, {@link Response#UNREACHABLE} if the node can't be reached
+     */
+    private Response call(String node, String operation, String method, String... parameters) {
+        AtomicLong retry = retries.get(node);
+        long retryAt = retry.get();
+        if (retryAt != 0) {
+            long now = System.currentTimeMillis();
+            // once the delay has elapsed, the first caller probes the node while the others keep failing fast
+            if (now < retryAt || !retry.compareAndSet(retryAt, now + RETRY_DELAY)) {
+                return Response.UNREACHABLE;
+            }
+        }
+        String url = node + operation;
+        try {
+            StringBuilder query = new StringBuilder(url);
+            char separator = '?';
+            for (int i = 0; i < parameters.length; i += 2) {
+                if (parameters[i + 1] != null) {
+                    query.append(separator).append(parameters[i]).append('=').append(encode(parameters[i + 1]));
+                    separator = '&';
+                }
+            }
+            HttpURLConnection connection = (HttpURLConnection)new URL(query.toString()).openConnection();
+            connection.setRequestMethod(method);
+            connection.setConnectTimeout(CONNECT_TIMEOUT);
+            connection.setReadTimeout(READ_TIMEOUT);
+            int status = connection.getResponseCode();
+            InputStream in = status < HttpURLConnection.HTTP_BAD_REQUEST ? connection.getInputStream() : connection.getErrorStream();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            if (in != null) {
+                try {
+                    byte[] buffer = new byte[256];
+                    for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                        body.write(buffer, 0, read);
+                    }
+                } finally {
+                    in.close();
+                }
+            }
+            if (retryAt != 0) {
+                retry.set(0);
+            }
+            return new Response(status, new String(body.toByteArray(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            if (retry.getAndSet(System.currentTimeMillis() + RETRY_DELAY) == 0) {
+                NOTIFIER.error("Scenario cluster node unreachable : " + url + " (" + e + "), not called for " + RETRY_DELAY + "ms");
+            }
+            return Response.UNREACHABLE;
+        }
+    }
+
+    private static String encode(String value) throws UnsupportedEncodingException {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8.name()).replace("+", "%20");
+    }
+
+    /**
+     * The view a thread matches a request against
+     */
+    private static final class RequestView {
+
+        /**
+         * The request, weakly referenced so an idle thread doesn't retain it
+         */
+        final WeakReference<Object> request;
+
+        final ClusteredScenarioStore store;
+
+        RequestView(Object request, ClusteredScenarioStore store) {
+            this.request = new WeakReference<>(request);
+            this.store = store;
+        }
+    }
+
+    /**
+     * Response of another node
+     */
+    private static final class Response {
+
+        /**
+         * Response standing for a node that can't be reached
+         */
+        static final Response UNREACHABLE = new Response(-1, "");
+
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
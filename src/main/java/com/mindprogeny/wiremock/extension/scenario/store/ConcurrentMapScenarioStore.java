@@ -0,0 +1,637 @@
+/*
+ * ConcurrentMapScenarioStore.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Default scenario store, holding the instances of each scenario in a {@link ConcurrentHashMap}, indexed by scenario id.
+ * <p>
+ * As hash maps can't be sampled at random, eviction victims are sampled clock style: each scenario keeps an iterator over
+ * its instances, the hand, which every eviction moves forward by a few instances and starts over once it reaches the end.
+ * <p>
+ * As hash maps can't resume an iteration either, each scenario also indexes its instances in a skip list ordered by a
+ * 63 bit hash of their id, so a scan resumes right after the position of the last instance it visited.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class ConcurrentMapScenarioStore implements ScenarioStore {
+
+    /**
+     * Lock guarding the creation, removal and growth of scenario slots
+     */
+    private final Object lock = new Object();
+
+    /**
+     * The scenario instances, indexed by scenario id, holding the interned state id of each scenario instance.
+     */
+    private volatile AtomicReferenceArray<Instances> scenarios = new AtomicReferenceArray<>(16);
+
+    /**
+     * Time based limits of the scenario instances
+     */
+    private final ScenarioExpiry expiry = new ScenarioExpiry();
+
+    /**
+     * Instance count limits of the scenarios and of the whole store
+     */
+    private final ScenarioCapacity capacity = new ScenarioCapacity();
+
+    /**
+     * Counters of expired, evicted and rejected instances
+     */
+    private final EvictionCounters counters = new EvictionCounters();
+
+    /**
+     * Matching metrics of the scenarios
+     */
+    private final ScenarioMetrics metrics = new ScenarioMetrics();
+
+    /**
+     * Next scenario to evict an instance from when the store is full
+     */
+    private final AtomicInteger globalHand = new AtomicInteger();
+
+    /**
+     * Listener told about expired and evicted instances
+     */
+    private volatile ObjIntConsumer<String> removalListener = (instance, scenarioId) -> {};
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#getOrInitialize(int, java.lang.String)
+     */
+    @Override
+    public int getOrInitialize(int scenarioId, String instance) {
+        Instance state = stateOf(scenarioId, instance);
+        return state == null ? SymbolTable.UNKNOWN : state.get();
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#getState(int, java.lang.String)
+     */
+    @Override
+    public int getState(int scenarioId, String instance) {
+        Instances instances = getInstances(scenarioId, false);
+        Instance state = instances == null ? null : instances.get(instance);
+        if (state == null) {
+            return SymbolTable.UNKNOWN;
+        }
+        state.touch();
+        return state.get();
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#peekState(int, java.lang.String)
+     */
+    @Override
+    public int peekState(int scenarioId, String instance) {
+        Instances instances = getInstances(scenarioId, false);
+        Instance state = instances == null ? null : instances.get(instance);
+        return state == null ? SymbolTable.UNKNOWN : state.get();
+    }
+
+    /**
+     * The state check and update are a single compare and set of the instance's interned state id, so concurrent requests
+     * for the same instance can't both see the required state and transition from it.  The compare and set never fails
+     * spuriously, so losing it means a concurrent transition already moved the instance out of the required state, and
+     * is final.
+     * 
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#transition(int, java.lang.String, int, int)
+     */
+    @Override
+    public boolean transition(int scenarioId, String instance, int requiredState, int newState) {
+        Instance state = stateOf(scenarioId, instance);
+        if (state == null) {
+            return false;
+        }
+        if (requiredState == SymbolTable.UNKNOWN) {
+            if (newState != SymbolTable.UNKNOWN) {
+                state.set(newState);
+            }
+            return true;
+        }
+        if (newState == SymbolTable.UNKNOWN) {
+            return state.get() == requiredState;
+        }
+        return state.compareAndSet(requiredState, newState);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#setState(int, java.lang.String, int)
+     */
+    @Override
+    public void setState(int scenarioId, String instance, int state) {
+        Instance holder = stateOf(scenarioId, instance);
+        if (holder != null) {
+            holder.set(state);
+        }
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#clearInstance(int, java.lang.String)
+     */
+    @Override
+    public boolean clearInstance(int scenarioId, String instance) {
+        Instances instances = getInstances(scenarioId, false);
+        if (instances != null) {
+            return instances.discard(instance, null);
+        }
+        return false;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#clearScenario(int)
+     */
+    @Override
+    public boolean clearScenario(int scenarioId) {
+        synchronized (lock) {
+            AtomicReferenceArray<Instances> current = scenarios;
+            return scenarioId < current.length() && current.getAndSet(scenarioId, null) != null;
+        }
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#clearAll()
+     */
+    @Override
+    public void clearAll() {
+        synchronized (lock) {
+            scenarios = new AtomicReferenceArray<>(scenarios.length());
+        }
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#containsScenario(int)
+     */
+    @Override
+    public boolean containsScenario(int scenarioId) {
+        return getInstances(scenarioId, false) != null;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#countInstances(int)
+     */
+    @Override
+    public int countInstances(int scenarioId) {
+        Instances instances = getInstances(scenarioId, false);
+        return instances == null ? 0 : (int) Math.min(Integer.MAX_VALUE, instances.mappingCount());
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#forEachInstance(int, java.util.function.ObjIntConsumer)
+     */
+    @Override
+    public void forEachInstance(int scenarioId, ObjIntConsumer<String> action) {
+        Instances instances = getInstances(scenarioId, false);
+        if (instances != null) {
+            instances.forEach((instance, state) -> action.accept(instance, state.get()));
+        }
+    }
+
+    /**
+     * The cursor is the position of the last instance visited in the scenario's index, the next page resuming right after
+     * it, so instances neither created nor deleted during the scan are visited exactly once.  Instances whose id hashes to
+     * the same position as the last one visited by a page, which 63 bit hashes make vanishingly unlikely, are skipped.
+     * 
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#scanInstances(int, long, int, com.mindprogeny.wiremock.extension.scenario.store.InstanceVisitor)
+     */
+    @Override
+    public long scanInstances(int scenarioId, long cursor, int limit, InstanceVisitor visitor) {
+        Instances instances = getInstances(scenarioId, false);
+        if (instances == null) {
+            return 0;
+        }
+        NavigableSet<Instance> page = cursor == 0 ? instances.index : instances.index.tailSet(Instance.after(cursor), false);
+        int taken = 0;
+        for (Instance state : page) {
+            if (visitor.visit(state.id, state.get(), state.touched) && ++taken == limit) {
+                return state.position;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#expireAfter(int, long, long)
+     */
+    @Override
+    public void expireAfter(int scenarioId, long timeToLive, long idleTimeout) {
+        if (expiry.set(scenarioId, timeToLive, idleTimeout)) {
+            ExpirySweeper.schedule(this);
+        }
+    }
+
+    /**
+     * Instances are removed only if still mapped to the expired state holder, so an instance re-created concurrently
+     * with the sweep survives it.
+     * 
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#evictExpired(long)
+     */
+    @Override
+    public int evictExpired(long now) {
+        if (expiry.isEmpty()) {
+            return 0;
+        }
+        int evicted = 0;
+        AtomicReferenceArray<Instances> current = scenarios;
+        for (int scenarioId = 0; scenarioId < current.length(); scenarioId++) {
+            Instances instances = current.get(scenarioId);
+            if (instances != null) {
+                for (Map.Entry<String,Instance> entry : instances.entrySet()) {
+                    Instance state = entry.getValue();
+                    if (expiry.isExpired(scenarioId, state.created, state.touched, now) && instances.discard(entry.getKey(), state)) {
+                        removalListener.accept(entry.getKey(), scenarioId);
+                        evicted++;
+                    }
+                }
+            }
+        }
+        counters.expired.add(evicted);
+        return evicted;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#limitInstances(int, int, com.mindprogeny.wiremock.extension.scenario.store.EvictionPolicy)
+     */
+    @Override
+    public void limitInstances(int scenarioId, int maxInstances, EvictionPolicy policy) {
+        capacity.set(scenarioId, maxInstances, policy);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#limitInstances(int, com.mindprogeny.wiremock.extension.scenario.store.EvictionPolicy)
+     */
+    @Override
+    public void limitInstances(int maxInstances, EvictionPolicy policy) {
+        capacity.setGlobal(maxInstances, policy);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#setRemovalListener(java.util.function.ObjIntConsumer)
+     */
+    @Override
+    public void setRemovalListener(ObjIntConsumer<String> listener) {
+        removalListener = listener;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#getEvictionCounters()
+     */
+    @Override
+    public EvictionCounters getEvictionCounters() {
+        return counters;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#getMetrics()
+     */
+    @Override
+    public ScenarioMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Creates the instances map of a scenario sized for the expected instances, if the scenario doesn't exist yet, as
+     * concurrent hash maps can't be grown ahead of time once created.
+     * 
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#reserve(int, int)
+     */
+    @Override
+    public void reserve(int scenarioId, int expectedInstances) {
+        getInstances(scenarioId, true, expectedInstances);
+    }
+
+    /**
+     * Gets the state holder of a specific instance, initializing the scenario and/or instance if needed, and touches it.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param instance The instance id
+     * @return The instance state holder, or null if the instance had to be created and was rejected for lack of room
+     */
+    private Instance stateOf(int scenarioId, String instance) {
+        Instances instances = getInstances(scenarioId, true);
+        Instance state = instances.get(instance);
+        if (state == null) {
+            if (!admit(scenarioId, instances)) {
+                return null;
+            }
+            state = instances.computeIfAbsent(instance, k -> {
+                metrics.forScenario(scenarioId).instancesCreated.increment();
+                Instance created = new Instance(k);
+                instances.index.add(created);
+                return created;
+            });
+        }
+        state.touch();
+        return state;
+    }
+
+    /**
+     * Makes room for a new instance of a scenario, if the scenario or the store are full.  Concurrent admissions may
+     * let the limits be exceeded by a few instances.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param instances the instances of the scenario
+     * @return false if the instance is rejected
+     */
+    private boolean admit(int scenarioId, Instances instances) {
+        int maxInstances = capacity.maxInstances(scenarioId);
+        if (maxInstances > 0 && instances.mappingCount() >= maxInstances) {
+            EvictionPolicy policy = capacity.policy(scenarioId);
+            if (policy == EvictionPolicy.REJECT) {
+                counters.rejected.increment();
+                return false;
+            }
+            evict(scenarioId, instances, policy);
+        }
+        int globalMaxInstances = capacity.globalMaxInstances;
+        if (globalMaxInstances > 0 && size() >= globalMaxInstances) {
+            EvictionPolicy policy = capacity.globalPolicy;
+            if (policy == EvictionPolicy.REJECT) {
+                counters.rejected.increment();
+                return false;
+            }
+            AtomicReferenceArray<Instances> current = scenarios;
+            for (int i = 0; i < current.length(); i++) {
+                int victimScenarioId = (globalHand.getAndIncrement() & Integer.MAX_VALUE) % current.length();
+                Instances victims = current.get(victimScenarioId);
+                if (victims != null && !victims.isEmpty()) {
+                    evict(victimScenarioId, victims, policy);
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Evicts the coldest of the next {@link ScenarioCapacity#SAMPLE_SIZE} instances under the hand of a scenario.  The
+     * hand is taken while sampling, so concurrent evictions of the same scenario sample from a fresh iterator instead.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param instances the instances of the scenario
+     * @param policy the policy deciding which instance is the coldest
+     */
+    private void evict(int scenarioId, Instances instances, EvictionPolicy policy) {
+        Iterator<Map.Entry<String,Instance>> hand = instances.hand.getAndSet(null);
+        Map.Entry<String,Instance> victim = null;
+        boolean restarted = false;
+        for (int sampled = 0; sampled < ScenarioCapacity.SAMPLE_SIZE; sampled++) {
+            if (hand == null || !hand.hasNext()) {
+                if (restarted) {
+                    break;
+                }
+                hand = instances.entrySet().iterator();
+                restarted = true;
+                if (!hand.hasNext()) {
+                    break;
+                }
+            }
+            Map.Entry<String,Instance> candidate = hand.next();
+            if (victim == null) {
+                victim = candidate;
+            } else {
+                Instance state = candidate.getValue();
+                Instance coldest = victim.getValue();
+                if (policy.isColder(state.touched, state.hits, coldest.touched, coldest.hits)) {
+                    coldest.hits >>>= 1;
+                    victim = candidate;
+                } else {
+                    state.hits >>>= 1;
+                }
+            }
+        }
+        instances.hand.set(hand);
+        if (victim != null && instances.discard(victim.getKey(), victim.getValue())) {
+            removalListener.accept(victim.getKey(), scenarioId);
+            counters.evicted.increment();
+        }
+    }
+
+    /**
+     * @return the number of instances of all scenarios
+     */
+    private long size() {
+        long size = 0;
+        AtomicReferenceArray<Instances> current = scenarios;
+        for (int i = 0; i < current.length(); i++) {
+            Instances instances = current.get(i);
+            if (instances != null) {
+                size += instances.mappingCount();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gets the instances of a scenario.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param create whether to create the scenario if it doesn't exist yet
+     * @return the scenario instances, or null if the scenario doesn't exist and wasn't requested to be created
+     */
+    private Instances getInstances(int scenarioId, boolean create) {
+        return getInstances(scenarioId, create, 16);
+    }
+
+    /**
+     * Gets the instances of a scenario.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param create whether to create the scenario if it doesn't exist yet
+     * @param initialCapacity number of instances the scenario can hold without resizing, if it gets created
+     * @return the scenario instances, or null if the scenario doesn't exist and wasn't requested to be created
+     */
+    private Instances getInstances(int scenarioId, boolean create, int initialCapacity) {
+        AtomicReferenceArray<Instances> current = scenarios;
+        Instances instances = scenarioId < current.length() ? current.get(scenarioId) : null;
+        if (instances != null || !create) {
+            return instances;
+        }
+        synchronized (lock) {
+            current = scenarios;
+            if (scenarioId >= current.length()) {
+                AtomicReferenceArray<Instances> grown = new AtomicReferenceArray<>(Math.max(scenarioId + 1, current.length() * 2));
+                for (int i = 0; i < current.length(); i++) {
+                    grown.set(i, current.get(i));
+                }
+                scenarios = current = grown;
+            }
+            instances = current.get(scenarioId);
+            if (instances == null) {
+                instances = new Instances(initialCapacity);
+                current.set(scenarioId, instances);
+            }
+            return instances;
+        }
+    }
+
+    /**
+     * State holder of a scenario instance, holding its interned state id along with the times it was created and last
+     * touched, and its id and position in the scenario's index.
+     */
+    @SuppressWarnings("serial")
+    private static final class Instance extends AtomicInteger {
+
+        /**
+         * Order of the instances in the index, by position then id, a null id standing after all ids at its position
+         */
+        static final Comparator<Instance> ORDER = (a, b) -> {
+            int order = Long.compare(a.position, b.position);
+            if (order != 0 || a.id == b.id) {
+                return order;
+            }
+            return a.id == null ? 1 : b.id == null ? -1 : a.id.compareTo(b.id);
+        };
+
+        /**
+         * The instance id, or null for a position probe
+         */
+        final String id;
+
+        /**
+         * Position of the instance in the index, a 63 bit hash of its id, never 0
+         */
+        final long position;
+
+        /**
+         * Time the instance was created
+         */
+        final long created;
+
+        /**
+         * Time the instance was last touched
+         */
+        volatile long touched;
+
+        /**
+         * Approximate number of times the instance was touched, updated without synchronization
+         */
+        int hits;
+
+        Instance(String id) {
+            super(STARTED);
+            this.id = id;
+            position = positionOf(id);
+            created = touched = ScenarioExpiry.now();
+        }
+
+        private Instance(long position) {
+            id = null;
+            this.position = position;
+            created = 0;
+        }
+
+        /**
+         * @param position a position in the index
+         * @return a probe standing after all the instances at the position
+         */
+        static Instance after(long position) {
+            return new Instance(position);
+        }
+
+        /**
+         * Hashes an instance id to its position, a 64 bit polynomial hash mixed by the murmur3 finalizer, shifted into
+         * the positive longs and made odd so that 0 stays free for cursors starting a scan.
+         */
+        static long positionOf(String id) {
+            long hash = 1125899906842597L;
+            for (int i = 0; i < id.length(); i++) {
+                hash = 31 * hash + id.charAt(i);
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return (hash >>> 1) | 1;
+        }
+
+        /**
+         * Records the instance was used, skipping the time write if already done within the same millisecond.
+         */
+        void touch() {
+            if (hits != Integer.MAX_VALUE) {
+                hits++;
+            }
+            long now = ScenarioExpiry.now();
+            if (touched != now) {
+                touched = now;
+            }
+        }
+    }
+
+    /**
+     * Instances of a scenario, by instance id, along with their index and the hand sampling them for eviction.
+     * <p>
+     * Instances are added to the index while being created and removed from it while being discarded, both under the
+     * lock of their map entry, so the index always holds the instances of the map.
+     */
+    @SuppressWarnings("serial")
+    private static final class Instances extends ConcurrentHashMap<String,Instance> {
+
+        /**
+         * Iterator over the next eviction candidates, or null if taken or not started
+         */
+        final AtomicReference<Iterator<Map.Entry<String,Instance>>> hand = new AtomicReference<>();
+
+        /**
+         * The instances, by position, resuming scans
+         */
+        final NavigableSet<Instance> index = new ConcurrentSkipListSet<>(Instance.ORDER);
+
+        /**
+         * @param initialCapacity number of instances the map can hold without resizing
+         */
+        Instances(int initialCapacity) {
+            super(initialCapacity);
+        }
+
+        /**
+         * Removes an instance from the map and the index.
+         * 
+         * @param id the instance id
+         * @param expected the state holder the instance must still be mapped to, or null if any
+         * @return true if the instance was removed
+         */
+        boolean discard(String id, Instance expected) {
+            boolean[] discarded = new boolean[1];
+            computeIfPresent(id, (k, state) -> {
+                if (expected != null && state != expected) {
+                    return state;
+                }
+                index.remove(state);
+                discarded[0] = true;
+                return null;
+            });
+            return discarded[0];
+        }
+    }
+}
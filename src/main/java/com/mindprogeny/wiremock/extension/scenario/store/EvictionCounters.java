@@ -0,0 +1,80 @@
+/*
+ * EvictionCounters.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the instances removed from a store, or never let into it, other than through the admin api.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public final class EvictionCounters {
+
+    /**
+     * Instances evicted for going over their time to live or idle timeout
+     */
+    final LongAdder expired = new LongAdder();
+
+    /**
+     * Instances evicted to make room for new ones
+     */
+    final LongAdder evicted = new LongAdder();
+
+    /**
+     * Instances not created for lack of room
+     */
+    final LongAdder rejected = new LongAdder();
+
+    /**
+     * @return the number of instances evicted for going over their time to live or idle timeout
+     */
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    /**
+     * @return the number of instances evicted to make room for new ones
+     */
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    /**
+     * @return the number of instances not created for lack of room
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return the current counts, by counter name
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        snapshot.put("expired", getExpired());
+        snapshot.put("evicted", getEvicted());
+        snapshot.put("rejected", getRejected());
+        return snapshot;
+    }
+}
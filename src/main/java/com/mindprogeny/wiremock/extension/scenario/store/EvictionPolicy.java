@@ -0,0 +1,74 @@
+/*
+ * EvictionPolicy.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+/**
+ * Policy applied when a new instance would take a scenario, or the whole store, over its maximum number of instances.
+ * <p>
+ * Configured per stub through the "scenarioEvictionPolicy" parameter, with {@link #LRU} as default.  Eviction is
+ * approximate: the victim is the coldest of a small sample of instances, not of all of them.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public enum EvictionPolicy {
+
+    /**
+     * Evict the least recently touched instance of the sample.
+     */
+    LRU,
+
+    /**
+     * Evict the least frequently touched instance of the sample.  Instance hit counts are halved every time they survive
+     * a sample, so formerly hot instances eventually cool down.
+     */
+    LFU,
+
+    /**
+     * Evict nothing and refuse to create the new instance, so stubs requiring it don't match.
+     */
+    REJECT;
+
+    /**
+     * Gets the policy from its case insensitive name.
+     * 
+     * @param name the policy name, or null for the default policy
+     * @return the named policy
+     */
+    public static EvictionPolicy fromString(String name) {
+        return name == null ? LRU : valueOf(name.toUpperCase());
+    }
+
+    /**
+     * Compares two eviction candidates.
+     * 
+     * @param touched time the candidate was last touched
+     * @param hits number of times the candidate was touched
+     * @param otherTouched time the other candidate was last touched
+     * @param otherHits number of times the other candidate was touched
+     * @return true if the candidate should be evicted rather than the other one
+     */
+    boolean isColder(long touched, int hits, long otherTouched, int otherHits) {
+        if (this == LFU && hits != otherHits) {
+            return hits < otherHits;
+        }
+        return touched < otherTouched;
+    }
+}
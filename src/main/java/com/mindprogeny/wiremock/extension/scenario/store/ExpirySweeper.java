@@ -0,0 +1,79 @@
+/*
+ * ExpirySweeper.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Background sweeper evicting the expired instances of the stores with time based limits.
+ * <p>
+ * All stores are swept by a single daemon thread, each at the rate given by the {@link #INTERVAL_PROPERTY} system
+ * property.  Stores are only weakly referenced, so a discarded store stops being swept once collected.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+final class ExpirySweeper {
+
+    /**
+     * System property with the interval between sweeps, in milliseconds
+     */
+    static final String INTERVAL_PROPERTY = "concurrent-scenarios.sweepInterval";
+
+    /**
+     * Interval between sweeps, in milliseconds
+     */
+    private static final long INTERVAL = Long.getLong(INTERVAL_PROPERTY, 1000L);
+
+    /**
+     * The sweeper thread
+     */
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "concurrent-scenarios-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ExpirySweeper() {
+    }
+
+    /**
+     * Starts sweeping a store.
+     * 
+     * @param store the store to sweep
+     */
+    static void schedule(ScenarioStore store) {
+        WeakReference<ScenarioStore> reference = new WeakReference<>(store);
+        AtomicReference<ScheduledFuture<?>> future = new AtomicReference<>();
+        future.set(EXECUTOR.scheduleWithFixedDelay(() -> {
+            ScenarioStore swept = reference.get();
+            if (swept == null) {
+                future.get().cancel(false);
+            } else {
+                swept.evictExpired(ScenarioExpiry.now());
+            }
+        }, INTERVAL, INTERVAL, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * InstanceVisitor.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+/**
+ * Receives the instances of a scenario scanned by {@link ScenarioStore#scanInstances(int, long, int, InstanceVisitor)}.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+@FunctionalInterface
+public interface InstanceVisitor {
+
+    /**
+     * Visits a scenario instance.
+     * 
+     * @param instance the instance id
+     * @param state the interned id of the instance state
+     * @param touched the time the instance was last touched, in milliseconds since the epoch
+     * @return true if the instance was taken, and counts towards the scan limit, false if it was filtered out
+     */
+    boolean visit(String instance, int state, long touched);
+}
@@ -0,0 +1,694 @@
+/*
+ * JournaledScenarioStore.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ObjIntConsumer;
+
+import com.github.tomakehurst.wiremock.common.Notifier;
+import com.github.tomakehurst.wiremock.common.Slf4jNotifier;
+
+/**
+ * Scenario store decorator journaling every state change of another store to an append only file, so that a restarted
+ * server replays them on top of the last {@link ScenarioSnapshot}.
+ * <p>
+ * Journaled changes are state transitions, state settings and deletions of instances, scenarios or of the whole store,
+ * including the instances the journaled store expires or evicts by itself.  Instances created in the {@link #STARTED}
+ * state are not journaled, reloaded instances starting their time based limits and eviction recency over anyway.
+ * <p>
+ * Changes are handed over to a writer thread through a lock free queue, so the requesting threads never wait on the
+ * file: the writer drains the queue into a buffer and appends it with a single write followed by a single sync, group
+ * committing all the changes made meanwhile.  A changed instance is only queued once its change is applied, the writer
+ * journaling the state the instance is in when the writer gets to it, or its deletion if it is gone, so the last record
+ * of an instance always holds its latest state whatever order concurrent changes were queued in.  Clearing a scenario
+ * or the whole store queues a barrier, journaled as the clear followed by the instances the store holds by then.
+ * <p>
+ * If the journal can't be written to, the failure is logged and the store carries on without journaling.
+ * <p>
+ * Once the journal grows over the size given by the {@link #COMPACTION_SIZE_PROPERTY} system property, the writer
+ * compacts it: it saves a snapshot of the store and truncates the journal, the changes made during the snapshot staying
+ * in the queue to be journaled after it.
+ * <p>
+ * The journal holds a magic number followed by tagged records, scenario and state ids being defined by records mapping
+ * them to their names before they are used, as ids are not kept across restarts.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class JournaledScenarioStore implements ScenarioStore {
+
+    /**
+     * System property with the size over which the journal is compacted, in bytes
+     */
+    public static final String COMPACTION_SIZE_PROPERTY = "concurrent-scenarios.journalCompactionSize";
+
+    /**
+     * Size over which the journal is compacted, in bytes
+     */
+    private static final long COMPACTION_SIZE = Long.getLong(COMPACTION_SIZE_PROPERTY, 64L * 1024 * 1024);
+
+    /**
+     * Magic number starting every journal, "CSJ" and the format version
+     */
+    private static final int MAGIC = 0x43534a01;
+
+    /**
+     * Notifier of journal write failures
+     */
+    private static final Notifier NOTIFIER = new Slf4jNotifier(false);
+
+    private static final byte DEFINE_SCENARIO = 1;
+    private static final byte DEFINE_STATE = 2;
+    private static final byte SET_STATE = 3;
+    private static final byte CLEAR_INSTANCE = 4;
+    private static final byte CLEAR_SCENARIO = 5;
+    private static final byte CLEAR_ALL = 6;
+
+    /**
+     * The journaled store
+     */
+    private final ScenarioStore store;
+
+    /**
+     * The journal file
+     */
+    private final Path journal;
+
+    /**
+     * The snapshot file the journal is replayed on top of
+     */
+    private final Path snapshot;
+
+    /**
+     * Size over which the journal is compacted, in bytes
+     */
+    private final long compactionSize;
+
+    /**
+     * Changes waiting to be journaled
+     */
+    private final Queue<Change> changes = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The journal writer thread
+     */
+    private final Thread writer;
+
+    /**
+     * Whether the writer thread keeps running
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Whether the journal failed to be written to, changes not being queued anymore
+     */
+    private volatile boolean failed;
+
+    /**
+     * Whether the writer is parked, or about to, waiting for changes
+     */
+    private volatile boolean idle;
+
+    /**
+     * Listener told about the instances the journaled store expires or evicts, after they are queued
+     */
+    private volatile ObjIntConsumer<String> removalListener = (instance, scenarioId) -> {};
+
+    /**
+     * Loads the snapshot and replays the journal into a store, if they exist, then starts journaling its changes.
+     * 
+     * @param store the store to journal, usually empty
+     * @param journal the journal file
+     * @param snapshot the snapshot file the journal is replayed on top of, and compacted into
+     * @throws IOException if the snapshot or journal can't be read, or the journal can't be opened
+     */
+    public JournaledScenarioStore(ScenarioStore store, Path journal, Path snapshot) throws IOException {
+        this(store, journal, snapshot, COMPACTION_SIZE);
+    }
+
+    /**
+     * @param store the store to journal, usually empty
+     * @param journal the journal file
+     * @param snapshot the snapshot file the journal is replayed on top of, and compacted into
+     * @param compactionSize size over which the journal is compacted, in bytes
+     * @throws IOException if the snapshot or journal can't be read, or the journal can't be opened
+     */
+    JournaledScenarioStore(ScenarioStore store, Path journal, Path snapshot, long compactionSize) throws IOException {
+        this.store = store;
+        this.compactionSize = compactionSize;
+        this.journal = journal;
+        this.snapshot = snapshot;
+        if (Files.exists(snapshot)) {
+            ScenarioSnapshot.read(store, snapshot);
+        }
+        long end = Files.exists(journal) && Files.size(journal) > 0 ? replay(store, journal) : 0;
+        store.setRemovalListener((instance, scenarioId) -> {
+            enqueue(new Change(scenarioId, instance));
+            removalListener.accept(instance, scenarioId);
+        });
+        FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        // drop a record cut short by a crash, so the next ones are appended right after the last complete one
+        channel.truncate(end);
+        channel.position(end);
+        writer = new Thread(() -> write(channel), "concurrent-scenarios-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops journaling, after journaling all the changes made so far.
+     * 
+     * @throws InterruptedException if interrupted while waiting for the writer to finish
+     */
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join();
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#getOrInitialize(int, java.lang.String)
+     */
+    @Override
+    public int getOrInitialize(int scenarioId, String instance) {
+        return store.getOrInitialize(scenarioId, instance);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#getState(int, java.lang.String)
+     */
+    @Override
+    public int getState(int scenarioId, String instance) {
+        return store.getState(scenarioId, instance);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#peekState(int, java.lang.String)
+     */
+    @Override
+    public int peekState(int scenarioId, String instance) {
+        return store.peekState(scenarioId, instance);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#transition(int, java.lang.String, int, int)
+     */
+    @Override
+    public boolean transition(int scenarioId, String instance, int requiredState, int newState) {
+        if (!store.transition(scenarioId, instance, requiredState, newState)) {
+            return false;
+        }
+        enqueue(new Change(scenarioId, instance));
+        return true;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#setState(int, java.lang.String, int)
+     */
+    @Override
+    public void setState(int scenarioId, String instance, int state) {
+        store.setState(scenarioId, instance, state);
+        enqueue(new Change(scenarioId, instance));
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#clearInstance(int, java.lang.String)
+     */
+    @Override
+    public boolean clearInstance(int scenarioId, String instance) {
+        if (!store.clearInstance(scenarioId, instance)) {
+            return false;
+        }
+        enqueue(new Change(scenarioId, instance));
+        return true;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#clearScenario(int)
+     */
+    @Override
+    public boolean clearScenario(int scenarioId) {
+        if (!store.clearScenario(scenarioId)) {
+            return false;
+        }
+        enqueue(new Change(scenarioId, null));
+        return true;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#clearAll()
+     */
+    @Override
+    public void clearAll() {
+        store.clearAll();
+        enqueue(new Change(SymbolTable.UNKNOWN, null));
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#containsScenario(int)
+     */
+    @Override
+    public boolean containsScenario(int scenarioId) {
+        return store.containsScenario(scenarioId);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#countInstances(int)
+     */
+    @Override
+    public int countInstances(int scenarioId) {
+        return store.countInstances(scenarioId);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#forEachInstance(int, java.util.function.ObjIntConsumer)
+     */
+    @Override
+    public void forEachInstance(int scenarioId, ObjIntConsumer<String> action) {
+        store.forEachInstance(scenarioId, action);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#scanInstances(int, long, int, com.mindprogeny.wiremock.extension.scenario.store.InstanceVisitor)
+     */
+    @Override
+    public long scanInstances(int scenarioId, long cursor, int limit, InstanceVisitor visitor) {
+        return store.scanInstances(scenarioId, cursor, limit, visitor);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#expireAfter(int, long, long)
+     */
+    @Override
+    public void expireAfter(int scenarioId, long timeToLive, long idleTimeout) {
+        store.expireAfter(scenarioId, timeToLive, idleTimeout);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#evictExpired(long)
+     */
+    @Override
+    public int evictExpired(long now) {
+        return store.evictExpired(now);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#limitInstances(int, int, com.mindprogeny.wiremock.extension.scenario.store.EvictionPolicy)
+     */
+    @Override
+    public void limitInstances(int scenarioId, int maxInstances, EvictionPolicy policy) {
+        store.limitInstances(scenarioId, maxInstances, policy);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#limitInstances(int, com.mindprogeny.wiremock.extension.scenario.store.EvictionPolicy)
+     */
+    @Override
+    public void limitInstances(int maxInstances, EvictionPolicy policy) {
+        store.limitInstances(maxInstances, policy);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#setRemovalListener(java.util.function.ObjIntConsumer)
+     */
+    @Override
+    public void setRemovalListener(ObjIntConsumer<String> listener) {
+        removalListener = listener;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#reserve(int, int)
+     */
+    @Override
+    public void reserve(int scenarioId, int expectedInstances) {
+        store.reserve(scenarioId, expectedInstances);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#isLocal(int, java.lang.String)
+     */
+    @Override
+    public boolean isLocal(int scenarioId, String instance) {
+        return store.isLocal(scenarioId, instance);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#getEvictionCounters()
+     */
+    @Override
+    public EvictionCounters getEvictionCounters() {
+        return store.getEvictionCounters();
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#getMetrics()
+     */
+    @Override
+    public ScenarioMetrics getMetrics() {
+        return store.getMetrics();
+    }
+
+    /**
+     * Queues a change for the writer, waking it up if idle, unless the journal failed to be written to.
+     * 
+     * @param change the change to journal
+     */
+    private void enqueue(Change change) {
+        if (!failed) {
+            changes.offer(change);
+            if (failed) {
+                // the writer failed meanwhile and won't drain the queue anymore
+                changes.clear();
+            } else if (idle) {
+                LockSupport.unpark(writer);
+            }
+        }
+    }
+
+    /**
+     * Writer thread loop, draining the queue into the journal until closed
+     * 
+     * @param channel the journal, positioned at its end
+     */
+    private void write(FileChannel channel) {
+        JournalBuffer buffer = new JournalBuffer();
+        try {
+            if (channel.size() == 0) {
+                buffer.putInt(MAGIC);
+            }
+            boolean stopping = false;
+            while (!stopping) {
+                // read the flag before draining, so the changes made before closing are all drained
+                stopping = !running;
+                Change change;
+                while ((change = changes.poll()) != null) {
+                    journal(change, buffer);
+                    if (buffer.isFull()) {
+                        buffer.writeTo(channel);
+                    }
+                }
+                if (buffer.isEmpty()) {
+                    // enqueue reads the flag after queuing, so either the queue is seen non empty or the writer unparked
+                    idle = true;
+                    if (changes.isEmpty() && running) {
+                        LockSupport.park(this);
+                    }
+                    idle = false;
+                } else {
+                    buffer.writeTo(channel);
+                    channel.force(false);
+                    if (channel.size() > compactionSize) {
+                        compact(channel, buffer);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // the journal can't be written to anymore, the store carries on without it
+            failed = true;
+            running = false;
+            changes.clear();
+            NOTIFIER.error("Scenario journal " + journal + " can't be written to, scenario state changes aren't journaled anymore", e);
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // nothing left to do
+            }
+        }
+    }
+
+    /**
+     * Encodes a change with the current state of what it changed: an instance is journaled in the state it is in now,
+     * or as deleted if gone, and a cleared scenario or store is followed by the instances it holds now.
+     * 
+     * @param change the change to journal
+     * @param buffer the buffer to encode it into
+     */
+    private void journal(Change change, JournalBuffer buffer) {
+        if (change.instance != null) {
+            int state = store.peekState(change.scenarioId, change.instance);
+            if (state == SymbolTable.UNKNOWN) {
+                buffer.putClearInstance(change.scenarioId, change.instance);
+            } else {
+                buffer.putState(change.scenarioId, change.instance, state);
+            }
+        } else if (change.scenarioId != SymbolTable.UNKNOWN) {
+            buffer.putClearScenario(change.scenarioId);
+            store.forEachInstance(change.scenarioId, (instance, state) -> buffer.putState(change.scenarioId, instance, state));
+        } else {
+            buffer.putClearAll();
+            store.forEachScenario(scenarioId -> 
+                    store.forEachInstance(scenarioId, (instance, state) -> buffer.putState(scenarioId, instance, state)));
+        }
+    }
+
+    /**
+     * Saves a snapshot of the store, then truncates the journal.  Changes made while saving wait in the queue, and are
+     * journaled on top of the snapshot.
+     */
+    private void compact(FileChannel channel, JournalBuffer buffer) throws IOException {
+        ScenarioSnapshot.write(store, snapshot);
+        channel.truncate(0);
+        channel.position(0);
+        buffer.reset();
+        buffer.putInt(MAGIC);
+    }
+
+    /**
+     * Replays a journal into a store.  A record cut short by a crash at the end of the journal is ignored.
+     * 
+     * @param store the store to replay the journal into
+     * @param journal the journal file
+     * @return the offset right after the last complete record, where the journal should be truncated to before appending
+     * @throws IOException if the journal can't be read or isn't a valid journal
+     */
+    static long replay(ScenarioStore store, Path journal) throws IOException {
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Journal too large : " + journal);
+            }
+            MappedByteBuffer in = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < Integer.BYTES) {
+                // the magic number itself was cut short
+                return 0;
+            }
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a scenario journal : " + journal);
+            }
+            int[] scenarios = new int[16];
+            int[] states = new int[16];
+            byte[] bytes = new byte[256];
+            int end = in.position();
+            while (in.hasRemaining()) {
+                try {
+                    byte tag = in.get();
+                    int id = tag == CLEAR_ALL ? SymbolTable.UNKNOWN : in.getInt();
+                    String name = null;
+                    if (tag != CLEAR_SCENARIO && tag != CLEAR_ALL) {
+                        int length = in.getInt();
+                        if (length > bytes.length) {
+                            bytes = new byte[length];
+                        }
+                        in.get(bytes, 0, length);
+                        name = new String(bytes, 0, length, StandardCharsets.UTF_8);
+                    }
+                    switch (tag) {
+                    case DEFINE_SCENARIO :
+                        scenarios = define(scenarios, id, SCENARIO_NAMES.intern(name));
+                        break;
+                    case DEFINE_STATE :
+                        states = define(states, id, STATE_NAMES.intern(name));
+                        break;
+                    case SET_STATE :
+                        int state = in.getInt();
+                        store.setState(lookup(scenarios, id, journal), name, lookup(states, state, journal));
+                        break;
+                    case CLEAR_INSTANCE :
+                        store.clearInstance(lookup(scenarios, id, journal), name);
+                        break;
+                    case CLEAR_SCENARIO :
+                        store.clearScenario(lookup(scenarios, id, journal));
+                        break;
+                    case CLEAR_ALL :
+                        store.clearAll();
+                        break;
+                    default :
+                        throw new IOException("Corrupted scenario journal : " + journal);
+                    }
+                    end = in.position();
+                } catch (BufferUnderflowException e) {
+                    // a record cut short at the end of the journal, by a crash while appending it
+                    break;
+                } catch (RuntimeException e) {
+                    throw new IOException("Corrupted scenario journal : " + journal, e);
+                }
+            }
+            return end;
+        }
+    }
+
+    /**
+     * Maps a journal id to an interned id, growing the mapping if needed
+     */
+    private static int[] define(int[] ids, int journalId, int id) {
+        int[] defined = journalId < ids.length ? ids : Arrays.copyOf(ids, Math.max(journalId + 1, ids.length * 2));
+        defined[journalId] = id + 1;
+        return defined;
+    }
+
+    /**
+     * Gets the interned id a journal id was mapped to
+     */
+    private static int lookup(int[] ids, int journalId, Path journal) throws IOException {
+        if (journalId < 0 || journalId >= ids.length || ids[journalId] == 0) {
+            throw new IOException("Undefined id in scenario journal : " + journal);
+        }
+        return ids[journalId] - 1;
+    }
+
+    /**
+     * A change waiting to be journaled: a changed instance, or a barrier clearing a scenario, if the instance is null,
+     * or the whole store, if the scenario id is unknown too
+     */
+    private static final class Change {
+
+        final int scenarioId;
+        final String instance;
+
+        Change(int scenarioId, String instance) {
+            this.scenarioId = scenarioId;
+            this.instance = instance;
+        }
+    }
+
+    /**
+     * Buffer of encoded changes, defining the scenario and state ids the first time they are written to the journal
+     */
+    private static final class JournalBuffer {
+
+        /**
+         * Size over which the buffer is written without waiting for the queue to be drained
+         */
+        private static final int FLUSH_SIZE = 64 * 1024;
+
+        private ByteBuffer buffer = ByteBuffer.allocate(FLUSH_SIZE * 2);
+
+        /**
+         * Scenario ids already defined in the journal
+         */
+        private final BitSet scenarios = new BitSet();
+
+        /**
+         * State ids already defined in the journal
+         */
+        private final BitSet states = new BitSet();
+
+        void putState(int scenarioId, String instance, int state) {
+            defineScenario(scenarioId);
+            if (!states.get(state)) {
+                putRecord(DEFINE_STATE, state, STATE_NAMES.nameOf(state));
+                states.set(state);
+            }
+            putRecord(SET_STATE, scenarioId, instance);
+            putInt(state);
+        }
+
+        void putClearInstance(int scenarioId, String instance) {
+            defineScenario(scenarioId);
+            putRecord(CLEAR_INSTANCE, scenarioId, instance);
+        }
+
+        void putClearScenario(int scenarioId) {
+            defineScenario(scenarioId);
+            ensure(1 + Integer.BYTES);
+            buffer.put(CLEAR_SCENARIO).putInt(scenarioId);
+        }
+
+        void putClearAll() {
+            ensure(1);
+            buffer.put(CLEAR_ALL);
+        }
+
+        private void defineScenario(int scenarioId) {
+            if (!scenarios.get(scenarioId)) {
+                putRecord(DEFINE_SCENARIO, scenarioId, SCENARIO_NAMES.nameOf(scenarioId));
+                scenarios.set(scenarioId);
+            }
+        }
+
+        void putInt(int value) {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        private void putRecord(byte tag, int id, String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(1 + 2 * Integer.BYTES + bytes.length);
+            buffer.put(tag).putInt(id).putInt(bytes.length).put(bytes);
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                buffer = grown.put(buffer);
+            }
+        }
+
+        boolean isEmpty() {
+            return buffer.position() == 0;
+        }
+
+        boolean isFull() {
+            return buffer.position() >= FLUSH_SIZE;
+        }
+
+        void writeTo(FileChannel channel) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Forgets the ids defined in the journal, once truncated
+         */
+        void reset() {
+            buffer.clear();
+            scenarios.clear();
+            states.clear();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * LatencyHistogram.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of durations in nanoseconds, with power of two buckets.
+ * <p>
+ * Recording a duration is a leading zeros count and two {@link LongAdder} increments, so it can be done on every match
+ * without contention between threads.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Number of buckets, the last one holding all durations of 2^(BUCKETS - 2) nanoseconds (about 0.5s) or more
+     */
+    public static final int BUCKETS = 31;
+
+    /**
+     * Number of durations in each bucket, bucket i holding durations under 2^i nanoseconds (and at least 2^(i-1))
+     */
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    /**
+     * Sum of all durations
+     */
+    private final LongAdder sum = new LongAdder();
+
+    LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a duration.
+     * 
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        int bucket = nanos <= 0 ? 0 : Math.min(BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(nanos));
+        buckets[bucket].increment();
+        sum.add(nanos);
+    }
+
+    /**
+     * @return the number of recorded durations
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return the sum of all recorded durations, in nanoseconds
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Gets the cumulative count of durations under each bucket upper bound, bucket i being bounded by 2^i nanoseconds and
+     * the last one being unbounded.
+     * 
+     * @return the cumulative counts, by bucket
+     */
+    public long[] getCumulativeCounts() {
+        long[] cumulative = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += buckets[i].sum();
+            cumulative[i] = count;
+        }
+        return cumulative;
+    }
+
+    /**
+     * Gets the cumulative count of durations under each bucket upper bound, the last one being unbounded.
+     * 
+     * @return the cumulative counts by upper bound in nanoseconds, "+Inf" for the last one, in increasing order
+     */
+    public Map<String, Long> getCumulativeBuckets() {
+        Map<String, Long> cumulative = new LinkedHashMap<>();
+        long[] counts = getCumulativeCounts();
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative.put(i == BUCKETS - 1 ? "+Inf" : Long.toString(1L << i), counts[i]);
+        }
+        return cumulative;
+    }
+}
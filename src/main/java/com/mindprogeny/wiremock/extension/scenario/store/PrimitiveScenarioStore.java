@@ -0,0 +1,812 @@
+/*
+ * PrimitiveScenarioStore.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Scenario store meant for a very high number of instances, keeping all of them in open addressing hash tables made of
+ * primitive arrays, instead of a graph of map nodes and state holders per instance.
+ * <p>
+ * Instances are spread over a fixed number of segments, by the hash of their scenario and instance ids.  Each segment is
+ * a linear probing table, with backward shift deletion, holding the instance hash, the scenario id, the instance id and
+ * the interned state id of each instance in parallel arrays, along with the times it was created and last touched.  Lookups and state transitions share the segment's read
+ * lock, states being updated with compare and set, while inserts, deletes and resizes take its write lock.
+ * <p>
+ * Eviction victims are sampled from a random position of the segment the new instance goes to, already write locked by
+ * the insert.  When it holds no candidates, other segments are tried, but only if their write lock is free, so a full
+ * store never blocks on, or deadlocks with, inserts into other segments.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class PrimitiveScenarioStore implements ScenarioStore {
+
+    /**
+     * Number of bits of the hash selecting the segment
+     */
+    private static final int SEGMENT_BITS = 6;
+
+    /**
+     * Default initial capacity of each segment
+     */
+    private static final int DEFAULT_SEGMENT_CAPACITY = 1024;
+
+    /**
+     * The table segments
+     */
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    /**
+     * Maximum number of slots scanned for eviction candidates in a segment
+     */
+    private static final int EVICTION_SCAN_LIMIT = 8 * ScenarioCapacity.SAMPLE_SIZE;
+
+    /**
+     * The number of instances of each existing scenario, by scenario id
+     */
+    private final ConcurrentHashMap<Integer, AtomicInteger> scenarios = new ConcurrentHashMap<>();
+
+    /**
+     * Time based limits of the scenario instances
+     */
+    private final ScenarioExpiry expiry = new ScenarioExpiry();
+
+    /**
+     * Instance count limits of the scenarios and of the whole store
+     */
+    private final ScenarioCapacity capacity = new ScenarioCapacity();
+
+    /**
+     * Counters of expired, evicted and rejected instances
+     */
+    private final EvictionCounters counters = new EvictionCounters();
+
+    /**
+     * Matching metrics of the scenarios
+     */
+    private final ScenarioMetrics metrics = new ScenarioMetrics();
+
+    /**
+     * Listener told about expired and evicted instances
+     */
+    private volatile ObjIntConsumer<String> removalListener = (instance, scenarioId) -> {};
+
+    /**
+     * Creates a store with the default initial capacity
+     */
+    public PrimitiveScenarioStore() {
+        this(DEFAULT_SEGMENT_CAPACITY << SEGMENT_BITS);
+    }
+
+    /**
+     * Creates a store pre-sized for a number of instances
+     * 
+     * @param expectedInstances number of instances the store should hold without resizing
+     */
+    public PrimitiveScenarioStore(int expectedInstances) {
+        int segmentCapacity = Integer.highestOneBit(Math.max(16, (expectedInstances >> SEGMENT_BITS) * 4 / 3) - 1) << 1;
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#getOrInitialize(int, java.lang.String)
+     */
+    @Override
+    public int getOrInitialize(int scenarioId, String instance) {
+        int hash = hash(scenarioId, instance);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.readLock();
+        try {
+            int index = segment.indexOf(hash, scenarioId, instance);
+            if (index < 0) {
+                segment.lock.unlockRead(stamp);
+                stamp = segment.lock.writeLock();
+                index = insertIfAbsent(segment, hash, scenarioId, instance);
+                if (index < 0) {
+                    return SymbolTable.UNKNOWN;
+                }
+            }
+            segment.touch(index);
+            return segment.states.get(index);
+        } finally {
+            segment.lock.unlock(stamp);
+        }
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#getState(int, java.lang.String)
+     */
+    @Override
+    public int getState(int scenarioId, String instance) {
+        int hash = hash(scenarioId, instance);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.readLock();
+        try {
+            int index = segment.indexOf(hash, scenarioId, instance);
+            if (index < 0) {
+                return SymbolTable.UNKNOWN;
+            }
+            segment.touch(index);
+            return segment.states.get(index);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#peekState(int, java.lang.String)
+     */
+    @Override
+    public int peekState(int scenarioId, String instance) {
+        int hash = hash(scenarioId, instance);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.readLock();
+        try {
+            int index = segment.indexOf(hash, scenarioId, instance);
+            return index < 0 ? SymbolTable.UNKNOWN : segment.states.get(index);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#transition(int, java.lang.String, int, int)
+     */
+    @Override
+    public boolean transition(int scenarioId, String instance, int requiredState, int newState) {
+        int hash = hash(scenarioId, instance);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.readLock();
+        try {
+            int index = segment.indexOf(hash, scenarioId, instance);
+            if (index < 0) {
+                segment.lock.unlockRead(stamp);
+                stamp = segment.lock.writeLock();
+                index = insertIfAbsent(segment, hash, scenarioId, instance);
+                if (index < 0) {
+                    return false;
+                }
+                stamp = segment.lock.tryConvertToReadLock(stamp);
+            }
+            segment.touch(index);
+            AtomicIntegerArray states = segment.states;
+            if (requiredState == SymbolTable.UNKNOWN) {
+                if (newState != SymbolTable.UNKNOWN) {
+                    states.set(index, newState);
+                }
+                return true;
+            }
+            if (newState == SymbolTable.UNKNOWN) {
+                return states.get(index) == requiredState;
+            }
+            return states.compareAndSet(index, requiredState, newState);
+        } finally {
+            segment.lock.unlock(stamp);
+        }
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#setState(int, java.lang.String, int)
+     */
+    @Override
+    public void setState(int scenarioId, String instance, int state) {
+        transition(scenarioId, instance, SymbolTable.UNKNOWN, state);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#clearInstance(int, java.lang.String)
+     */
+    @Override
+    public boolean clearInstance(int scenarioId, String instance) {
+        int hash = hash(scenarioId, instance);
+        Segment segment = segmentFor(hash);
+        long stamp = segment.lock.writeLock();
+        try {
+            int index = segment.indexOf(hash, scenarioId, instance);
+            if (index < 0) {
+                return false;
+            }
+            delete(segment, index);
+            return true;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#clearScenario(int)
+     */
+    @Override
+    public boolean clearScenario(int scenarioId) {
+        if (scenarios.remove(scenarioId) == null) {
+            return false;
+        }
+        for (Segment segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                segment.rehash(segment.instances.length, scenarioId);
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#clearAll()
+     */
+    @Override
+    public void clearAll() {
+        scenarios.clear();
+        for (Segment segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                segment.allocate(segment.instances.length);
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#containsScenario(int)
+     */
+    @Override
+    public boolean containsScenario(int scenarioId) {
+        return scenarios.containsKey(scenarioId);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#countInstances(int)
+     */
+    @Override
+    public int countInstances(int scenarioId) {
+        AtomicInteger count = scenarios.get(scenarioId);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#forEachInstance(int, java.util.function.ObjIntConsumer)
+     */
+    @Override
+    public void forEachInstance(int scenarioId, ObjIntConsumer<String> action) {
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                for (int i = 0; i < segment.instances.length; i++) {
+                    if (segment.instances[i] != null && segment.scenarioIds[i] == scenarioId) {
+                        action.accept(segment.instances[i], segment.states.get(i));
+                    }
+                }
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * The cursor holds the index of the segment in its upper half, and the slot of the segment to resume from in its lower
+     * half.  A segment resized or shifting instances on deletion between two pages may have some instances visited twice
+     * or skipped.
+     * 
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#scanInstances(int, long, int, com.mindprogeny.wiremock.extension.scenario.store.InstanceVisitor)
+     */
+    @Override
+    public long scanInstances(int scenarioId, long cursor, int limit, InstanceVisitor visitor) {
+        if (!scenarios.containsKey(scenarioId)) {
+            return 0;
+        }
+        int taken = 0;
+        int slot = Math.max(0, (int)cursor);
+        for (int index = (int)(cursor >>> 32); index < segments.length; index++, slot = 0) {
+            Segment segment = segments[index];
+            long stamp = segment.lock.readLock();
+            try {
+                for (; slot < segment.instances.length; slot++) {
+                    if (segment.instances[slot] != null && segment.scenarioIds[slot] == scenarioId
+                            && visitor.visit(segment.instances[slot], segment.states.get(slot), segment.touched.get(slot))
+                            && ++taken == limit) {
+                        return ((long)index << 32) | (slot + 1);
+                    }
+                }
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#expireAfter(int, long, long)
+     */
+    @Override
+    public void expireAfter(int scenarioId, long timeToLive, long idleTimeout) {
+        if (expiry.set(scenarioId, timeToLive, idleTimeout)) {
+            ExpirySweeper.schedule(this);
+        }
+    }
+
+    /**
+     * Segments are swept one at a time, each under its own write lock, so a sweep never blocks more than one segment.
+     * 
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#evictExpired(long)
+     */
+    @Override
+    public int evictExpired(long now) {
+        if (expiry.isEmpty()) {
+            return 0;
+        }
+        int evicted = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                int i = 0;
+                while (i < segment.instances.length) {
+                    if (segment.instances[i] != null 
+                            && expiry.isExpired(segment.scenarioIds[i], segment.created[i], segment.touched.get(i), now)) {
+                        String instance = segment.instances[i];
+                        int scenarioId = segment.scenarioIds[i];
+                        // deletion shifts a later instance back into this slot, so check it again
+                        delete(segment, i);
+                        removalListener.accept(instance, scenarioId);
+                        evicted++;
+                    } else {
+                        i++;
+                    }
+                }
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+        counters.expired.add(evicted);
+        return evicted;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#limitInstances(int, int, com.mindprogeny.wiremock.extension.scenario.store.EvictionPolicy)
+     */
+    @Override
+    public void limitInstances(int scenarioId, int maxInstances, EvictionPolicy policy) {
+        capacity.set(scenarioId, maxInstances, policy);
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#limitInstances(int, com.mindprogeny.wiremock.extension.scenario.store.EvictionPolicy)
+     */
+    @Override
+    public void limitInstances(int maxInstances, EvictionPolicy policy) {
+        capacity.setGlobal(maxInstances, policy);
+    }
+
+    /**
+     * Grows the segments ahead of time so they can take their share of the expected instances without rehashing.
+     * 
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#reserve(int, int)
+     */
+    @Override
+    public void reserve(int scenarioId, int expectedInstances) {
+        int share = expectedInstances / segments.length + 1;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                int required = segment.size + share;
+                if (required > segment.instances.length * 3 / 4) {
+                    segment.rehash(Integer.highestOneBit(required * 4 / 3) << 1, SymbolTable.UNKNOWN);
+                }
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#setRemovalListener(java.util.function.ObjIntConsumer)
+     */
+    @Override
+    public void setRemovalListener(ObjIntConsumer<String> listener) {
+        removalListener = listener;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#getEvictionCounters()
+     */
+    @Override
+    public EvictionCounters getEvictionCounters() {
+        return counters;
+    }
+
+    /**
+     * @see com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore#getMetrics()
+     */
+    @Override
+    public ScenarioMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Inserts an instance in the {@link #STARTED} state, unless a concurrent insert beat us to it, making room for it if
+     * needed.  Must be called holding the segment's write lock.
+     * 
+     * @return the index of the instance, or -1 if it was rejected for lack of room
+     */
+    private int insertIfAbsent(Segment segment, int hash, int scenarioId, String instance) {
+        int index = segment.indexOf(hash, scenarioId, instance);
+        if (index < 0) {
+            if (!admit(segment, scenarioId)) {
+                return -1;
+            }
+            scenarios.computeIfAbsent(scenarioId, k -> new AtomicInteger()).incrementAndGet();
+            index = segment.insert(hash, scenarioId, instance, STARTED);
+            metrics.forScenario(scenarioId).instancesCreated.increment();
+        }
+        return index;
+    }
+
+    /**
+     * Deletes the instance at an index of a segment, keeping count of the instances of its scenario.  Must be called
+     * holding the segment's write lock.
+     */
+    private void delete(Segment segment, int index) {
+        AtomicInteger count = scenarios.get(segment.scenarioIds[index]);
+        if (count != null) {
+            count.decrementAndGet();
+        }
+        segment.delete(index);
+    }
+
+    /**
+     * Makes room for a new instance of a scenario, if the scenario or the store are full.  Must be called holding the
+     * write lock of the segment the instance goes to.  Concurrent admissions may let the limits be exceeded by a few
+     * instances.
+     * 
+     * @param segment the segment the instance goes to
+     * @param scenarioId Interned id of the scenario name
+     * @return false if the instance is rejected
+     */
+    private boolean admit(Segment segment, int scenarioId) {
+        int maxInstances = capacity.maxInstances(scenarioId);
+        if (maxInstances > 0) {
+            AtomicInteger count = scenarios.get(scenarioId);
+            if (count != null && count.get() >= maxInstances) {
+                EvictionPolicy policy = capacity.policy(scenarioId);
+                if (policy == EvictionPolicy.REJECT) {
+                    counters.rejected.increment();
+                    return false;
+                }
+                evict(segment, scenarioId, policy);
+            }
+        }
+        int globalMaxInstances = capacity.globalMaxInstances;
+        if (globalMaxInstances > 0 && size() >= globalMaxInstances) {
+            EvictionPolicy policy = capacity.globalPolicy;
+            if (policy == EvictionPolicy.REJECT) {
+                counters.rejected.increment();
+                return false;
+            }
+            evict(segment, SymbolTable.UNKNOWN, policy);
+        }
+        return true;
+    }
+
+    /**
+     * Evicts an instance, sampled first from the write locked segment a new instance goes to, then from the other
+     * segments whose write lock is free.
+     * 
+     * @param segment the write locked segment
+     * @param scenarioId Interned id of the scenario to evict from, or {@link SymbolTable#UNKNOWN} for any scenario
+     * @param policy the policy deciding which instance is the coldest
+     */
+    private void evict(Segment segment, int scenarioId, EvictionPolicy policy) {
+        if (evictFrom(segment, scenarioId, policy)) {
+            return;
+        }
+        int start = ThreadLocalRandom.current().nextInt(segments.length);
+        for (int i = 0; i < segments.length; i++) {
+            Segment other = segments[(start + i) & (segments.length - 1)];
+            if (other != segment) {
+                long stamp = other.lock.tryWriteLock();
+                if (stamp != 0L) {
+                    try {
+                        if (evictFrom(other, scenarioId, policy)) {
+                            return;
+                        }
+                    } finally {
+                        other.lock.unlockWrite(stamp);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Evicts the coldest of the first {@link ScenarioCapacity#SAMPLE_SIZE} candidates found scanning a segment from a
+     * random slot.  Must be called holding the segment's write lock.
+     * 
+     * @param segment the segment to evict from
+     * @param scenarioId Interned id of the scenario to evict from, or {@link SymbolTable#UNKNOWN} for any scenario
+     * @param policy the policy deciding which instance is the coldest
+     * @return true if an instance was evicted, false if no candidate was found
+     */
+    private boolean evictFrom(Segment segment, int scenarioId, EvictionPolicy policy) {
+        if (segment.size == 0) {
+            return false;
+        }
+        int mask = segment.instances.length - 1;
+        int i = ThreadLocalRandom.current().nextInt(segment.instances.length);
+        int victim = -1;
+        int sampled = 0;
+        for (int scanned = 0; scanned < EVICTION_SCAN_LIMIT && sampled < ScenarioCapacity.SAMPLE_SIZE; scanned++, i = (i + 1) & mask) {
+            if (segment.instances[i] != null && (scenarioId == SymbolTable.UNKNOWN || segment.scenarioIds[i] == scenarioId)) {
+                sampled++;
+                if (victim < 0) {
+                    victim = i;
+                } else if (policy.isColder(segment.touched.get(i), segment.hits.get(i), segment.touched.get(victim), segment.hits.get(victim))) {
+                    segment.hits.set(victim, segment.hits.get(victim) >>> 1);
+                    victim = i;
+                } else {
+                    segment.hits.set(i, segment.hits.get(i) >>> 1);
+                }
+            }
+        }
+        if (victim < 0) {
+            return false;
+        }
+        String instance = segment.instances[victim];
+        int victimScenarioId = segment.scenarioIds[victim];
+        delete(segment, victim);
+        removalListener.accept(instance, victimScenarioId);
+        counters.evicted.increment();
+        return true;
+    }
+
+    /**
+     * @return the approximate number of instances in the store, reading segment sizes without locking
+     */
+    private int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * @return the segment holding instances with the given hash
+     */
+    private Segment segmentFor(int hash) {
+        return segments[hash >>> (Integer.SIZE - SEGMENT_BITS)];
+    }
+
+    /**
+     * Hashes a scenario instance, spreading the bits of its instance id hash code (murmur3 finalizer)
+     */
+    private static int hash(int scenarioId, String instance) {
+        int hash = instance.hashCode() * 31 + scenarioId;
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * A linear probing hash table of scenario instances.
+     */
+    private static final class Segment {
+
+        /**
+         * Lock guarding the structure of the table
+         */
+        final StampedLock lock = new StampedLock();
+
+        /**
+         * Instance hashes
+         */
+        int[] hashes;
+
+        /**
+         * Instance scenario ids
+         */
+        int[] scenarioIds;
+
+        /**
+         * Instance ids, null marking an empty slot
+         */
+        String[] instances;
+
+        /**
+         * Instance interned state ids
+         */
+        AtomicIntegerArray states;
+
+        /**
+         * Instance creation times
+         */
+        long[] created;
+
+        /**
+         * Instance last touched times, updated under the read lock
+         */
+        AtomicLongArray touched;
+
+        /**
+         * Instance approximate hit counts, updated under the read lock
+         */
+        AtomicIntegerArray hits;
+
+        /**
+         * Number of instances in the table
+         */
+        int size;
+
+        /**
+         * @param capacity initial capacity, must be a power of two
+         */
+        Segment(int capacity) {
+            allocate(capacity);
+        }
+
+        /**
+         * Replaces the table with an empty one.
+         * 
+         * @param capacity table capacity, must be a power of two
+         */
+        void allocate(int capacity) {
+            hashes = new int[capacity];
+            scenarioIds = new int[capacity];
+            instances = new String[capacity];
+            states = new AtomicIntegerArray(capacity);
+            created = new long[capacity];
+            touched = new AtomicLongArray(capacity);
+            hits = new AtomicIntegerArray(capacity);
+            size = 0;
+        }
+
+        /**
+         * @return the index of an instance, or -1 if not present
+         */
+        int indexOf(int hash, int scenarioId, String instance) {
+            String[] keys = instances;
+            int mask = keys.length - 1;
+            for (int i = hash & mask; keys[i] != null; i = (i + 1) & mask) {
+                if (hashes[i] == hash && scenarioIds[i] == scenarioId && keys[i].equals(instance)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Inserts an instance known to be absent, growing the table when it gets over 75% full.
+         * 
+         * @return the index of the instance
+         */
+        int insert(int hash, int scenarioId, String instance, int state) {
+            if (++size > instances.length * 3 / 4) {
+                rehash(instances.length * 2, SymbolTable.UNKNOWN);
+            }
+            int mask = instances.length - 1;
+            int i = hash & mask;
+            while (instances[i] != null) {
+                i = (i + 1) & mask;
+            }
+            hashes[i] = hash;
+            scenarioIds[i] = scenarioId;
+            instances[i] = instance;
+            states.set(i, state);
+            created[i] = ScenarioExpiry.now();
+            touched.set(i, created[i]);
+            hits.set(i, 0);
+            return i;
+        }
+
+        /**
+         * Records the instance at an index was used, skipping the time write if already done within the same millisecond.
+         * The hit count is incremented without atomicity, so concurrent touches may only count once.
+         * 
+         * @param index the index of the instance
+         */
+        void touch(int index) {
+            int count = hits.get(index);
+            if (count != Integer.MAX_VALUE) {
+                hits.lazySet(index, count + 1);
+            }
+            long now = ScenarioExpiry.now();
+            if (touched.get(index) != now) {
+                touched.lazySet(index, now);
+            }
+        }
+
+        /**
+         * Deletes the instance at an index, shifting back the following instances of its probe sequence.
+         * 
+         * @param index the index of the instance
+         */
+        void delete(int index) {
+            int mask = instances.length - 1;
+            int hole = index;
+            for (int i = (hole + 1) & mask; instances[i] != null; i = (i + 1) & mask) {
+                int home = hashes[i] & mask;
+                boolean reachable = hole <= i ? (hole < home && home <= i) : (hole < home || home <= i);
+                if (!reachable) {
+                    hashes[hole] = hashes[i];
+                    scenarioIds[hole] = scenarioIds[i];
+                    instances[hole] = instances[i];
+                    states.set(hole, states.get(i));
+                    created[hole] = created[i];
+                    touched.set(hole, touched.get(i));
+                    hits.set(hole, hits.get(i));
+                    hole = i;
+                }
+            }
+            instances[hole] = null;
+            states.set(hole, 0);
+            size--;
+        }
+
+        /**
+         * Rehashes all instances into a table with the given capacity, dropping those of a scenario.
+         * 
+         * @param capacity the new table capacity, must be a power of two
+         * @param droppedScenarioId the id of the scenario whose instances are dropped, or {@link SymbolTable#UNKNOWN} 
+         */
+        void rehash(int capacity, int droppedScenarioId) {
+            int[] oldHashes = hashes;
+            int[] oldScenarioIds = scenarioIds;
+            String[] oldInstances = instances;
+            AtomicIntegerArray oldStates = states;
+            long[] oldCreated = created;
+            AtomicLongArray oldTouched = touched;
+            AtomicIntegerArray oldHits = hits;
+            int oldSize = size;
+            allocate(capacity);
+            int mask = capacity - 1;
+            for (int j = 0; j < oldInstances.length; j++) {
+                if (oldInstances[j] != null && oldScenarioIds[j] != droppedScenarioId) {
+                    int i = oldHashes[j] & mask;
+                    while (instances[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    hashes[i] = oldHashes[j];
+                    scenarioIds[i] = oldScenarioIds[j];
+                    instances[i] = oldInstances[j];
+                    states.set(i, oldStates.get(j));
+                    created[i] = oldCreated[j];
+                    touched.set(i, oldTouched.get(j));
+                    hits.set(i, oldHits.get(j));
+                    size++;
+                }
+            }
+            if (droppedScenarioId == SymbolTable.UNKNOWN) {
+                size = oldSize;
+            }
+        }
+    }
+}
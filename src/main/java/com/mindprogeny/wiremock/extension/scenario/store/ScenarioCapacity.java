@@ -0,0 +1,105 @@
+/*
+ * ScenarioCapacity.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import java.util.Arrays;
+
+/**
+ * Maximum number of instances of each scenario and of the whole store, and the eviction policies applied when they are
+ * reached.
+ * <p>
+ * Like {@link ScenarioExpiry}, per scenario limits are kept in copy on write arrays indexed by scenario id, as they are
+ * only read when creating instances.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+final class ScenarioCapacity {
+
+    /**
+     * Number of instances sampled to pick an eviction victim
+     */
+    static final int SAMPLE_SIZE = 8;
+
+    /**
+     * Maximum number of instances of each scenario, 0 meaning no limit
+     */
+    private volatile int[] maxInstances = new int[0];
+
+    /**
+     * Eviction policy of each scenario
+     */
+    private volatile EvictionPolicy[] policies = new EvictionPolicy[0];
+
+    /**
+     * Maximum number of instances in the store, 0 meaning no limit
+     */
+    volatile int globalMaxInstances;
+
+    /**
+     * Eviction policy applied when the store is full
+     */
+    volatile EvictionPolicy globalPolicy = EvictionPolicy.LRU;
+
+    /**
+     * Sets the limit of a scenario.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param max maximum number of instances, or 0 for no limit
+     * @param policy policy applied when the limit is reached
+     */
+    synchronized void set(int scenarioId, int max, EvictionPolicy policy) {
+        int length = Math.max(maxInstances.length, scenarioId + 1);
+        int[] updatedMaxInstances = Arrays.copyOf(maxInstances, length);
+        EvictionPolicy[] updatedPolicies = Arrays.copyOf(policies, length);
+        updatedMaxInstances[scenarioId] = Math.max(0, max);
+        updatedPolicies[scenarioId] = policy;
+        policies = updatedPolicies;
+        maxInstances = updatedMaxInstances;
+    }
+
+    /**
+     * Sets the limit of the whole store.
+     * 
+     * @param max maximum number of instances, or 0 for no limit
+     * @param policy policy applied when the limit is reached
+     */
+    synchronized void setGlobal(int max, EvictionPolicy policy) {
+        globalPolicy = policy;
+        globalMaxInstances = Math.max(0, max);
+    }
+
+    /**
+     * @param scenarioId Interned id of the scenario name
+     * @return the maximum number of instances of the scenario, or 0 if unlimited
+     */
+    int maxInstances(int scenarioId) {
+        int[] current = maxInstances;
+        return scenarioId < current.length ? current[scenarioId] : 0;
+    }
+
+    /**
+     * @param scenarioId Interned id of the scenario name, whose limit must be set
+     * @return the eviction policy of the scenario
+     */
+    EvictionPolicy policy(int scenarioId) {
+        return policies[scenarioId];
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * ScenarioExpiry.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import java.util.Arrays;
+
+/**
+ * Time to live and idle timeout of the instances of each scenario, in milliseconds, zero meaning never.
+ * <p>
+ * Limits are kept in a copy on write array indexed by scenario id, as they change only when stubs are compiled while
+ * the sweeper reads them for every instance it visits.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+final class ScenarioExpiry {
+
+    /**
+     * Time to live and idle timeout of each scenario, at indexes 2 * id and 2 * id + 1
+     */
+    private volatile long[] limits = new long[0];
+
+    /**
+     * Sets the limits of a scenario.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param timeToLive maximum age of an instance, or 0 for no limit
+     * @param idleTimeout maximum time an instance may go unused, or 0 for no limit
+     * @return true if these are the first limits set, meaning the store must start being swept
+     */
+    synchronized boolean set(int scenarioId, long timeToLive, long idleTimeout) {
+        boolean first = isEmpty() && (timeToLive > 0 || idleTimeout > 0);
+        long[] updated = Arrays.copyOf(limits, Math.max(limits.length, 2 * scenarioId + 2));
+        updated[2 * scenarioId] = Math.max(0, timeToLive);
+        updated[2 * scenarioId + 1] = Math.max(0, idleTimeout);
+        limits = updated;
+        return first;
+    }
+
+    /**
+     * @return true if no scenario has limits
+     */
+    boolean isEmpty() {
+        for (long limit : limits) {
+            if (limit > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if an instance of a scenario has expired.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param created time the instance was created
+     * @param touched time the instance was last used
+     * @param now the current time
+     * @return true if the instance outlived its scenario's time to live or idle timeout
+     */
+    boolean isExpired(int scenarioId, long created, long touched, long now) {
+        long[] current = limits;
+        if (2 * scenarioId >= current.length) {
+            return false;
+        }
+        long timeToLive = current[2 * scenarioId];
+        long idleTimeout = current[2 * scenarioId + 1];
+        return (timeToLive > 0 && now - created >= timeToLive) || (idleTimeout > 0 && now - touched >= idleTimeout);
+    }
+
+    /**
+     * @return the current time, as recorded in instances and compared against the limits
+     */
+    static long now() {
+        return System.currentTimeMillis();
+    }
+}
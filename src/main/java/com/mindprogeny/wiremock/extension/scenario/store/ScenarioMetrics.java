@@ -0,0 +1,197 @@
+/*
+ * ScenarioMetrics.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Matching metrics of each scenario, recorded by the scenario matcher and the store they are kept in.
+ * <p>
+ * Counters are {@link LongAdder}s, held in a copy on write array indexed by scenario id, so recording never locks nor
+ * contends with other threads once a scenario's counters exist.  Counters are never reset, not even when their scenario
+ * is deleted.
+ * <p>
+ * The state transitions of a scenario can also be traced in a {@link TransitionTrace}, disabled unless given a capacity
+ * by {@link #traceTransitions(int, int)} or, for all scenarios, by the {@link ScenarioStore#TRACE_CAPACITY_PROPERTY}
+ * system property.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public final class ScenarioMetrics {
+
+    /**
+     * Counters of each scenario, by scenario id, null if the scenario was never matched
+     */
+    private volatile Counters[] scenarios = new Counters[16];
+
+    /**
+     * Capacity of the transition trace of scenarios not given one explicitly, 0 if disabled
+     */
+    private final int defaultTraceCapacity = Integer.getInteger(ScenarioStore.TRACE_CAPACITY_PROPERTY, 0);
+
+    /**
+     * Gets the counters of a scenario, creating them on first use.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @return the scenario counters
+     */
+    public Counters forScenario(int scenarioId) {
+        Counters[] current = scenarios;
+        Counters counters = scenarioId < current.length ? current[scenarioId] : null;
+        return counters != null ? counters : create(scenarioId);
+    }
+
+    /**
+     * Enables, resizes or disables the transition trace of a scenario.  Resizing discards the transitions already traced.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param capacity number of transitions kept, or 0 to disable tracing
+     */
+    public void traceTransitions(int scenarioId, int capacity) {
+        Counters counters = forScenario(scenarioId);
+        TransitionTrace trace = counters.trace;
+        if (capacity <= 0) {
+            counters.trace = null;
+        } else if (trace == null || trace.getCapacity() != TransitionTrace.sizeFor(capacity)) {
+            counters.trace = new TransitionTrace(capacity);
+        }
+    }
+
+    /**
+     * Gets the counters of a scenario, if it was ever matched.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @return the scenario counters, or null if it was never matched
+     */
+    public Counters getIfPresent(int scenarioId) {
+        Counters[] current = scenarios;
+        return scenarioId < current.length ? current[scenarioId] : null;
+    }
+
+    private synchronized Counters create(int scenarioId) {
+        Counters[] current = scenarios;
+        if (scenarioId >= current.length) {
+            Counters[] grown = new Counters[Math.max(scenarioId + 1, current.length * 2)];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            current = grown;
+        } else if (current[scenarioId] != null) {
+            return current[scenarioId];
+        } else {
+            current = current.clone();
+        }
+        Counters counters = new Counters();
+        if (defaultTraceCapacity > 0) {
+            counters.trace = new TransitionTrace(defaultTraceCapacity);
+        }
+        current[scenarioId] = counters;
+        scenarios = current;
+        return counters;
+    }
+
+    /**
+     * Takes a copy of the counters of all scenarios that were ever matched.
+     * 
+     * @return the counter values, by counter name, by scenario name
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new LinkedHashMap<>();
+        Counters[] current = scenarios;
+        for (int scenarioId = 0; scenarioId < current.length; scenarioId++) {
+            if (current[scenarioId] != null) {
+                snapshot.put(ScenarioStore.SCENARIO_NAMES.nameOf(scenarioId), current[scenarioId].snapshot());
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Matching counters of a scenario
+     */
+    public static final class Counters {
+
+        /**
+         * Requests not matching the request pattern of a stub of the scenario, while the scenario instance was in the
+         * required state
+         */
+        public final LongAdder patternMisses = new LongAdder();
+
+        /**
+         * Requests with the method and literal url of a stub of the scenario, but with the scenario instance not in the
+         * required state, the state being checked before the rest of the request pattern
+         */
+        public final LongAdder stateMisses = new LongAdder();
+
+        /**
+         * Requests matching both the request pattern and the required state
+         */
+        public final LongAdder matches = new LongAdder();
+
+        /**
+         * Matches that moved the scenario instance to a new state
+         */
+        public final LongAdder transitions = new LongAdder();
+
+        /**
+         * Scenario instances created
+         */
+        public final LongAdder instancesCreated = new LongAdder();
+
+        /**
+         * Time taken matching requests against the stubs of the scenario, pattern misses included
+         */
+        public final LatencyHistogram latency = new LatencyHistogram();
+
+        /**
+         * Latest state transitions, null if not traced
+         */
+        volatile TransitionTrace trace;
+
+        Counters() {
+        }
+
+        /**
+         * @return the latest state transitions of the scenario, or null if they are not traced
+         */
+        public TransitionTrace getTrace() {
+            return trace;
+        }
+
+        /**
+         * @return the counter values, by counter name
+         */
+        public Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("patternMisses", patternMisses.sum());
+            snapshot.put("stateMisses", stateMisses.sum());
+            snapshot.put("matches", matches.sum());
+            snapshot.put("transitions", transitions.sum());
+            snapshot.put("instancesCreated", instancesCreated.sum());
+            Map<String, Object> histogram = new LinkedHashMap<>();
+            histogram.put("count", latency.getCount());
+            histogram.put("sumNanos", latency.getSum());
+            histogram.put("buckets", latency.getCumulativeBuckets());
+            snapshot.put("latency", histogram);
+            return snapshot;
+        }
+    }
+}
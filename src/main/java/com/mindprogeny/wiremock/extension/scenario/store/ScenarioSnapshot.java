@@ -0,0 +1,315 @@
+/*
+ * ScenarioSnapshot.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.github.tomakehurst.wiremock.common.Notifier;
+import com.github.tomakehurst.wiremock.common.Slf4jNotifier;
+
+/**
+ * Snapshots of the scenario instances of a store and their states, saved to a local file through a buffered channel and
+ * loaded from it through memory mapped I/O, so a restarted server picks up its scenarios where it left them.
+ * <p>
+ * A snapshot is written from the store's weakly consistent iteration, scenario by scenario, so it never pauses request
+ * matching: at most it delays the creation of instances in the section of the store being copied.  It is written to a
+ * temporary file first and then atomically moved over the previous snapshot, which is never left half written.  A
+ * periodic snapshot failing to be written is logged, the previous one being kept.
+ * <p>
+ * The file holds a magic number followed by tagged records, each one a single byte tag and its fields, strings being
+ * stored as their UTF-8 length and bytes:
+ * <ul>
+ * <li>a scenario record holds the name of the scenario the following instances belong to</li>
+ * <li>a state record holds a state name, numbered in order of appearance</li>
+ * <li>an instance record holds the instance id and the number of its state record</li>
+ * <li>an end record closes the snapshot</li>
+ * </ul>
+ * Only instance states are saved: time based limits and eviction recency of reloaded instances start over.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public final class ScenarioSnapshot {
+
+    /**
+     * System property with the interval between periodic snapshots, in milliseconds
+     */
+    public static final String INTERVAL_PROPERTY = "concurrent-scenarios.snapshotInterval";
+
+    /**
+     * Interval between periodic snapshots, in milliseconds
+     */
+    private static final long INTERVAL = Long.getLong(INTERVAL_PROPERTY, 10000L);
+
+    /**
+     * Magic number starting every snapshot, "CSS" and the format version
+     */
+    private static final int MAGIC = 0x43535301;
+
+    private static final byte END = 0;
+    private static final byte SCENARIO = 1;
+    private static final byte STATE = 2;
+    private static final byte INSTANCE = 3;
+
+    /**
+     * Size of the buffer written to the file at a time
+     */
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Notifier of periodic snapshots failing to be written
+     */
+    private static final Notifier NOTIFIER = new Slf4jNotifier(false);
+
+    /**
+     * The snapshot thread
+     */
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "concurrent-scenarios-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ScenarioSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of all the instances of a store and their states, replacing the previous one.
+     * 
+     * @param store the store to save
+     * @param file the snapshot file
+     * @return the number of instances saved
+     * @throws IOException if the snapshot can't be written
+     */
+    public static int write(ScenarioStore store, Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        int[] instances = new int[1];
+        try (ChannelOutput out = new ChannelOutput(temporary)) {
+            out.writeInt(MAGIC);
+            int[][] stateRecords = {new int[ScenarioStore.STATE_NAMES.size()]};
+            int[] nextStateRecord = {1};
+            try {
+                store.forEachScenario(scenarioId -> {
+                    try {
+                        out.writeRecord(SCENARIO, ScenarioStore.SCENARIO_NAMES.nameOf(scenarioId));
+                        store.forEachInstance(scenarioId, (instance, state) -> {
+                            try {
+                                if (state >= stateRecords[0].length) {
+                                    stateRecords[0] = Arrays.copyOf(stateRecords[0], state + 1);
+                                }
+                                // state records are numbered from 1, so that 0 stands for a state not written yet
+                                if (stateRecords[0][state] == 0) {
+                                    out.writeRecord(STATE, ScenarioStore.STATE_NAMES.nameOf(state));
+                                    stateRecords[0][state] = nextStateRecord[0]++;
+                                }
+                                out.writeRecord(INSTANCE, instance);
+                                out.writeInt(stateRecords[0][state] - 1);
+                                instances[0]++;
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.writeByte(END);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return instances[0];
+    }
+
+    /**
+     * Loads a snapshot into a store, setting the state of every saved instance.  Instances of the store that are not in
+     * the snapshot are left untouched.
+     * 
+     * @param store the store to load the snapshot into
+     * @param file the snapshot file
+     * @return the number of instances loaded
+     * @throws IOException if the snapshot can't be read or isn't a valid snapshot
+     */
+    public static int read(ScenarioStore store, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large : " + file);
+            }
+            MappedByteBuffer in = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < Integer.BYTES || in.getInt() != MAGIC) {
+                throw new IOException("Not a scenario snapshot : " + file);
+            }
+            byte[] buffer = new byte[256];
+            int[] states = new int[16];
+            int stateCount = 0;
+            int scenarioId = SymbolTable.UNKNOWN;
+            int instances = 0;
+            try {
+                for (byte tag = in.get(); tag != END; tag = in.get()) {
+                    int length = in.getInt();
+                    if (length > buffer.length) {
+                        buffer = new byte[length];
+                    }
+                    in.get(buffer, 0, length);
+                    String name = new String(buffer, 0, length, StandardCharsets.UTF_8);
+                    switch (tag) {
+                    case SCENARIO :
+                        scenarioId = ScenarioStore.SCENARIO_NAMES.intern(name);
+                        break;
+                    case STATE :
+                        if (stateCount == states.length) {
+                            states = Arrays.copyOf(states, stateCount * 2);
+                        }
+                        states[stateCount++] = ScenarioStore.STATE_NAMES.intern(name);
+                        break;
+                    case INSTANCE :
+                        int state = in.getInt();
+                        if (scenarioId == SymbolTable.UNKNOWN || state < 0 || state >= stateCount) {
+                            throw new IOException("Corrupted scenario snapshot : " + file);
+                        }
+                        store.setState(scenarioId, name, states[state]);
+                        instances++;
+                        break;
+                    default :
+                        throw new IOException("Corrupted scenario snapshot : " + file);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // buffer underflows and negative lengths of a truncated or corrupted file
+                throw new IOException("Corrupted scenario snapshot : " + file, e);
+            }
+            return instances;
+        }
+    }
+
+    /**
+     * Loads the snapshot of a store if there is one, then saves it periodically, at the rate given by the
+     * {@link #INTERVAL_PROPERTY} system property, and once more when the JVM shuts down.  The store is only weakly
+     * referenced, so a discarded store stops being saved once collected.
+     * 
+     * @param store the store to save
+     * @param file the snapshot file
+     * @throws IOException if the existing snapshot can't be loaded
+     */
+    public static void schedule(ScenarioStore store, Path file) throws IOException {
+        if (Files.exists(file)) {
+            read(store, file);
+        }
+        WeakReference<ScenarioStore> reference = new WeakReference<>(store);
+        Runnable save = () -> {
+            ScenarioStore saved = reference.get();
+            if (saved != null) {
+                try {
+                    write(saved, file);
+                } catch (IOException e) {
+                    // keep the previous snapshot, and try again on the next run
+                    NOTIFIER.error("Scenario snapshot " + file + " can't be written, keeping the previous one", e);
+                }
+            }
+        };
+        EXECUTOR.scheduleWithFixedDelay(save, INTERVAL, INTERVAL, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(save, "concurrent-scenarios-snapshot-shutdown"));
+    }
+
+    /**
+     * Sequential output to a file, through a buffer written to its channel whenever full
+     */
+    private static final class ChannelOutput implements AutoCloseable {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        ChannelOutput(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                       StandardOpenOption.WRITE);
+        }
+
+        /**
+         * Makes sure the buffer has room for some bytes, writing it out if not
+         */
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        void writeByte(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void writeRecord(byte tag, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(1 + Integer.BYTES + Math.min(bytes.length, BUFFER_SIZE / 2));
+            buffer.put(tag);
+            buffer.putInt(bytes.length);
+            if (bytes.length > buffer.remaining()) {
+                // a value too large for the buffer is written straight to the channel
+                flush();
+                ByteBuffer large = ByteBuffer.wrap(bytes);
+                while (large.hasRemaining()) {
+                    channel.write(large);
+                }
+            } else {
+                buffer.put(bytes);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,456 @@
+/*
+ * ScenarioStore.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+
+/**
+ * Repository of scenario instances and their current states, shared by the scenario matcher and the admin api.
+ * <p>
+ * Scenarios and states are referred to by their ids interned in {@link #SCENARIO_NAMES} and {@link #STATE_NAMES},
+ * instances by their instance id.  Implementations must be thread safe, and the state transitions lock free or as close
+ * to it as possible, as they are on the request matching path.
+ * <p>
+ * The name based operations used by the admin api are provided on top of the id based ones.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public interface ScenarioStore {
+
+    /**
+     * Interned scenario names, shared by all stores
+     */
+    SymbolTable SCENARIO_NAMES = new SymbolTable();
+
+    /**
+     * Interned scenario state names, shared by all stores
+     */
+    SymbolTable STATE_NAMES = new SymbolTable();
+
+    /**
+     * Interned id of the state every scenario instance is initialized with
+     */
+    int STARTED = STATE_NAMES.intern(Scenario.STARTED);
+
+    /**
+     * System property selecting the implementation of the default store (see {@link #forName(String)})
+     */
+    String STORE_PROPERTY = "concurrent-scenarios.store";
+
+    /**
+     * System property with the maximum number of instances of the default store (see {@link #limitInstances(int, EvictionPolicy)})
+     */
+    String MAX_INSTANCES_PROPERTY = "concurrent-scenarios.maxInstances";
+
+    /**
+     * System property with the eviction policy applied when the default store is full
+     */
+    String EVICTION_POLICY_PROPERTY = "concurrent-scenarios.evictionPolicy";
+
+    /**
+     * System property with the number of state transitions traced for each scenario, tracing being disabled by default
+     * (see {@link ScenarioMetrics#traceTransitions(int, int)})
+     */
+    String TRACE_CAPACITY_PROPERTY = "concurrent-scenarios.traceCapacity";
+
+    /**
+     * System property with the file the default store is loaded from on startup and periodically saved to (see
+     * {@link ScenarioSnapshot}), the default store not being saved if absent
+     */
+    String SNAPSHOT_FILE_PROPERTY = "concurrent-scenarios.snapshotFile";
+
+    /**
+     * System property with the journal file of the default store (see {@link JournaledScenarioStore}), its snapshot file
+     * defaulting to the journal file name followed by ".snapshot", the default store not being journaled if absent
+     */
+    String JOURNAL_FILE_PROPERTY = "concurrent-scenarios.journalFile";
+
+    /**
+     * System property with the comma separated base urls of the nodes sharing the default store (see
+     * {@link ClusteredScenarioStore}), the default store not being shared if absent
+     */
+    String CLUSTER_NODES_PROPERTY = "concurrent-scenarios.clusterNodes";
+
+    /**
+     * System property with the base url of the local node, one of the {@link #CLUSTER_NODES_PROPERTY} ones
+     */
+    String CLUSTER_SELF_PROPERTY = "concurrent-scenarios.clusterSelf";
+
+    /**
+     * Gets the scenario state of a specific instance.  If the scenario and/or instance are still not present in the store
+     * the instance is initialized in the {@link #STARTED} state.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param instance The instance id
+     * @return The interned id of the instance state, or {@link SymbolTable#UNKNOWN} if the instance was rejected for
+     *         lack of room (see {@link #limitInstances(int, int, EvictionPolicy)})
+     */
+    int getOrInitialize(int scenarioId, String instance);
+
+    /**
+     * Gets the scenario state of a specific instance, without initializing it.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param instance The instance id
+     * @return The interned id of the instance state, or {@link SymbolTable#UNKNOWN} if the instance doesn't exist
+     */
+    int getState(int scenarioId, String instance);
+
+    /**
+     * Gets the scenario state of a specific instance without initializing it nor touching it, so background readers
+     * don't keep it from expiring or being evicted.  Defaults to {@link #getState(int, String)}.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param instance The instance id
+     * @return The interned id of the instance state, or {@link SymbolTable#UNKNOWN} if the instance doesn't exist
+     */
+    default int peekState(int scenarioId, String instance) {
+        return getState(scenarioId, instance);
+    }
+
+    /**
+     * Atomically moves a scenario instance from the required state to a new state, initializing the instance if needed.
+     * <p>
+     * The check and the move are a single compare and set, so a transition losing a race against a concurrent one is
+     * not retried: the instance no longer is in the required state.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param instance The instance id
+     * @param requiredState Interned id of the state the instance must be in, or {@link SymbolTable#UNKNOWN} if any
+     * @param newState Interned id of the state to move the instance to, or {@link SymbolTable#UNKNOWN} to leave it unchanged
+     * @return true if the instance was in the required state and moved to the new state, false otherwise, including
+     *         when the instance was rejected for lack of room
+     */
+    boolean transition(int scenarioId, String instance, int requiredState, int newState);
+
+    /**
+     * Sets the state of a specific instance of a scenario, creating the scenario and/or instance if needed and if there
+     * is room for it.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param instance The instance id
+     * @param state Interned id of the state to set the instance to
+     */
+    void setState(int scenarioId, String instance, int state);
+
+    /**
+     * Deletes a specific scenario instance
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param instance The instance id
+     * @return true if the instance was deleted or false if it didn't exist.
+     */
+    boolean clearInstance(int scenarioId, String instance);
+
+    /**
+     * Deletes a specific scenario and all its instances
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @return true if the scenario was deleted or false if it didn't exist.
+     */
+    boolean clearScenario(int scenarioId);
+
+    /**
+     * Deletes all scenarios and their instances
+     */
+    void clearAll();
+
+    /**
+     * Checks if a scenario exists, that is, if any of its instances was created since it was last deleted.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @return true if the scenario exists
+     */
+    boolean containsScenario(int scenarioId);
+
+    /**
+     * Counts the instances of a scenario, without iterating over them.  The count is weakly consistent with concurrent
+     * updates.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @return the number of instances of the scenario, 0 if it doesn't exist
+     */
+    int countInstances(int scenarioId);
+
+    /**
+     * Iterates over all instances of a scenario.  Iteration is weakly consistent with concurrent updates.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param action the action receiving each instance id and its interned state id
+     */
+    void forEachInstance(int scenarioId, ObjIntConsumer<String> action);
+
+    /**
+     * Visits a page of the instances of a scenario.  Scans are resumed from the cursor returned by the previous one, and
+     * are weakly consistent with concurrent updates: instances created or deleted during a scan may or may not be visited,
+     * and the store reorganizing itself may have some instances visited twice or not at all.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param cursor 0 to start a scan, or the cursor returned by the previous page
+     * @param limit maximum number of instances to be taken by the visitor, or 0 for no limit
+     * @param visitor the visitor receiving each instance, and deciding whether it is taken
+     * @return the cursor to resume the scan from, or 0 if all instances were visited
+     */
+    long scanInstances(int scenarioId, long cursor, int limit, InstanceVisitor visitor);
+
+    /**
+     * Sets the time based limits of the instances of a scenario, after which they are evicted by a background sweeper as
+     * if they had been deleted.  Instances are touched whenever they are read or transitioned.
+     *
+     * @param scenarioId Interned id of the scenario name
+     * @param timeToLive maximum time since an instance was created, in milliseconds, or 0 for no limit
+     * @param idleTimeout maximum time since an instance was last touched, in milliseconds, or 0 for no limit
+     */
+    void expireAfter(int scenarioId, long timeToLive, long idleTimeout);
+
+    /**
+     * Evicts all instances that went over their scenario's time based limits.  Called periodically by the sweeper of
+     * stores with limits, eviction only locks the instances being evicted (or the section of the store holding them).
+     *
+     * @param now the current time, in milliseconds since the epoch
+     * @return the number of evicted instances
+     */
+    int evictExpired(long now);
+
+    /**
+     * Sets the maximum number of instances of a scenario.  When a new instance would go over it, the policy either
+     * evicts an existing instance of the scenario or rejects the new one.
+     *
+     * @param scenarioId Interned id of the scenario name
+     * @param maxInstances maximum number of instances, or 0 for no limit
+     * @param policy policy applied when the limit is reached
+     */
+    void limitInstances(int scenarioId, int maxInstances, EvictionPolicy policy);
+
+    /**
+     * Sets the maximum number of instances of all scenarios together.  When a new instance would go over it, the policy
+     * either evicts an existing instance of any scenario or rejects the new one.
+     *
+     * @param maxInstances maximum number of instances, or 0 for no limit
+     * @param policy policy applied when the limit is reached
+     */
+    void limitInstances(int maxInstances, EvictionPolicy policy);
+
+    /**
+     * Sets the listener told about the instances the store removes by itself, because they expired or were evicted to
+     * make room for new ones.  Instances deleted through the store's api are not reported.  The listener is called on
+     * the removing thread, possibly while the store holds a lock, so it must be quick and not call back into the store.
+     * 
+     * @param listener the listener receiving the id and the interned scenario id of each removed instance
+     */
+    void setRemovalListener(ObjIntConsumer<String> listener);
+
+    /**
+     * @return the counters of expired, evicted and rejected instances
+     */
+    EvictionCounters getEvictionCounters();
+
+    /**
+     * @return the matching metrics of the scenarios kept in the store, recorded by the scenario matcher and the store
+     */
+    ScenarioMetrics getMetrics();
+
+    /**
+     * Hints the store that a number of instances of a scenario are about to be created, so it can size itself for them
+     * at once rather than growing as they come.  Implementations may ignore it.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param expectedInstances number of instances about to be created
+     */
+    default void reserve(int scenarioId, int expectedInstances) {
+    }
+
+    /**
+     * Tells whether the state of an instance is held in memory by this node, and so cheap to read ahead of a transition,
+     * or held remotely, the transition checking it anyway.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @param instance the instance id
+     * @return true if the state of the instance is read locally, true by default
+     */
+    default boolean isLocal(int scenarioId, String instance) {
+        return true;
+    }
+
+    /**
+     * Counts the instances of a scenario held by all the nodes sharing the store, the same as
+     * {@link #countInstances(int)} unless the store is shared.
+     * 
+     * @param scenarioId Interned id of the scenario name
+     * @return the number of instances of the scenario on all the nodes, 0 if it doesn't exist
+     */
+    default int countClusterInstances(int scenarioId) {
+        return countInstances(scenarioId);
+    }
+
+    /**
+     * Gets the store a request is matched against, the same for all the stubs it is matched against by the current
+     * thread.  A store holding instances remotely returns a view remembering the states it reads or transitions for the
+     * rest of the request, so each remote instance is called once, rather than once per stub.
+     * 
+     * @param request the request being matched, compared by identity
+     * @return the store to match the request against, this store by default
+     */
+    default ScenarioStore forRequest(Object request) {
+        return this;
+    }
+
+    /**
+     * Iterates over the ids of all existing scenarios.
+     * 
+     * @param action the action receiving each scenario id
+     */
+    default void forEachScenario(IntConsumer action) {
+        for (int scenarioId = 0; scenarioId < SCENARIO_NAMES.size(); scenarioId++) {
+            if (containsScenario(scenarioId)) {
+                action.accept(scenarioId);
+            }
+        }
+    }
+
+    /**
+     * Sets the state of a specific instance of a scenario. If the scenario doesn't exist or the specific instance
+     * doesn't exist, they will be created (even if no stub is using it).
+     * 
+     * @param scenario the scenario name
+     * @param instance the instance id
+     * @param state the state to set the scenario instance to.
+     */
+    default void setState(String scenario, String instance, String state) {
+        setState(SCENARIO_NAMES.intern(scenario), instance, STATE_NAMES.intern(state));
+    }
+
+    /**
+     * Deletes a specific scenario instance
+     * 
+     * @param scenario the name of the scenario to delete
+     * @param instance the instance id
+     * @return true if a scenario instance was deleted or false if no scenario instance with the provided id for the requested scenario existed.
+     */
+    default boolean clearInstance(String scenario, String instance) {
+        int scenarioId = SCENARIO_NAMES.idOf(scenario);
+        return scenarioId != SymbolTable.UNKNOWN && clearInstance(scenarioId, instance);
+    }
+
+    /**
+     * Deletes a specific scenario and all its instances
+     * 
+     * @param scenario the name of the scenario to delete
+     * @return true if a scenario was deleted or false if no scenario with the provided name existed.
+     */
+    default boolean clearScenario(String scenario) {
+        int scenarioId = SCENARIO_NAMES.idOf(scenario);
+        return scenarioId != SymbolTable.UNKNOWN && clearScenario(scenarioId);
+    }
+
+    /**
+     * Builds a store from its name.
+     * 
+     * @param name "concurrent" (or null) for the {@link ConcurrentMapScenarioStore}, "primitive" for the {@link PrimitiveScenarioStore}
+     * @return a new empty store
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    static ScenarioStore forName(String name) {
+        if (name == null) {
+            return new ConcurrentMapScenarioStore();
+        }
+        switch (name) {
+        case "concurrent" :
+            return new ConcurrentMapScenarioStore();
+        case "primitive" :
+            return new PrimitiveScenarioStore();
+        default :
+            throw new IllegalArgumentException("Unknown scenario store : " + name);
+        }
+    }
+
+    /**
+     * Gets the store shared by the extensions built without an explicit store, as is the case when they are loaded by
+     * class name.  Its implementation is selected by the {@link #STORE_PROPERTY} system property, its capacity by the
+     * {@link #MAX_INSTANCES_PROPERTY} and {@link #EVICTION_POLICY_PROPERTY} ones, its persistence by the
+     * {@link #SNAPSHOT_FILE_PROPERTY} and {@link #JOURNAL_FILE_PROPERTY} ones, and its sharing by the
+     * {@link #CLUSTER_NODES_PROPERTY} and {@link #CLUSTER_SELF_PROPERTY} ones.
+     * 
+     * @return the default store
+     */
+    static ScenarioStore defaultStore() {
+        return DefaultStore.INSTANCE;
+    }
+}
+
+/**
+ * Lazy holder of the default store
+ */
+final class DefaultStore {
+
+    /**
+     * The default store
+     */
+    static final ScenarioStore INSTANCE = create();
+
+    /**
+     * @return the default store, as configured by system properties
+     */
+    private static ScenarioStore create() {
+        ScenarioStore store = ScenarioStore.forName(System.getProperty(ScenarioStore.STORE_PROPERTY));
+        Integer maxInstances = Integer.getInteger(ScenarioStore.MAX_INSTANCES_PROPERTY);
+        if (maxInstances != null) {
+            store.limitInstances(maxInstances, EvictionPolicy.fromString(System.getProperty(ScenarioStore.EVICTION_POLICY_PROPERTY)));
+        }
+        String snapshotFile = System.getProperty(ScenarioStore.SNAPSHOT_FILE_PROPERTY);
+        String journalFile = System.getProperty(ScenarioStore.JOURNAL_FILE_PROPERTY);
+        try {
+            if (journalFile != null) {
+                // a journaled store's snapshots are only taken when compacting its journal
+                JournaledScenarioStore journaled = new JournaledScenarioStore(store, Paths.get(journalFile), 
+                                                                              Paths.get(snapshotFile != null ? snapshotFile : journalFile + ".snapshot"));
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        journaled.close();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, "concurrent-scenarios-journal-shutdown"));
+                store = journaled;
+            } else if (snapshotFile != null) {
+                ScenarioSnapshot.schedule(store, Paths.get(snapshotFile));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String clusterNodes = System.getProperty(ScenarioStore.CLUSTER_NODES_PROPERTY);
+        if (clusterNodes != null) {
+            store = new ClusteredScenarioStore(store, Arrays.asList(clusterNodes.split("\\s*,\\s*")), 
+                                               System.getProperty(ScenarioStore.CLUSTER_SELF_PROPERTY));
+        }
+        return store;
+    }
+
+    private DefaultStore() {
+    }
+}
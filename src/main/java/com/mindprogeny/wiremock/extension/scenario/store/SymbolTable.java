@@ -0,0 +1,107 @@
+/*
+ * SymbolTable.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread safe, append only table interning names into small, dense integer ids.
+ * <p>
+ * Lookups are lock free, only the registration of a new name is synchronized.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class SymbolTable {
+
+    /**
+     * Id returned for names that have not been interned
+     */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * Name to id index
+     */
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    /**
+     * Id to name index
+     */
+    private volatile String[] names = new String[16];
+
+    /**
+     * Number of interned names
+     */
+    private int size;
+
+    /**
+     * Gets the id of a name, interning it if it's still unknown.
+     * 
+     * @param name the name to intern
+     * @return the id of the name
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+            }
+            names[size] = name;
+            ids.put(name, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Gets the id of a name without interning it.
+     * 
+     * @param name the name to look for
+     * @return the id of the name, or {@link #UNKNOWN} if it was never interned
+     */
+    public int idOf(String name) {
+        Integer id = ids.get(name);
+        return id == null ? UNKNOWN : id;
+    }
+
+    /**
+     * Gets the name of an interned id.
+     * 
+     * @param id the id of the name
+     * @return the interned name
+     */
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    /**
+     * @return the number of interned names, ids being all the values from 0 up to (excluding) this number
+     */
+    public int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * TransitionTrace.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Fixed size ring buffer of the latest state transitions of a scenario, for debugging.
+ * <p>
+ * Recording is lock free: a writer claims a sequence number and stores an immutable {@link Transition} in the slot it
+ * maps to, overwriting the oldest one.  Readers skip slots that were claimed but not yet written, or overwritten while
+ * being read, so a read is weakly consistent with concurrent writes, but never blocks them.
+ * 
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public final class TransitionTrace {
+
+    /**
+     * The recorded transitions, the one with sequence number n being in slot n &amp; mask
+     */
+    private final AtomicReferenceArray<Transition> slots;
+
+    /**
+     * Slot index mask, the number of slots being a power of two
+     */
+    private final int mask;
+
+    /**
+     * Sequence number of the next transition
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param capacity minimum number of transitions kept, rounded up to a power of two
+     */
+    TransitionTrace(int capacity) {
+        slots = new AtomicReferenceArray<>(sizeFor(capacity));
+        mask = slots.length() - 1;
+    }
+
+    /**
+     * @param capacity minimum number of transitions kept
+     * @return the number of slots of a trace of that capacity, the next power of two
+     */
+    static int sizeFor(int capacity) {
+        return capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * Records a transition, overwriting the oldest one if the buffer is full.
+     * 
+     * @param instance the instance id
+     * @param fromState Interned id of the state the instance was in, or {@link SymbolTable#UNKNOWN} if not known
+     * @param toState Interned id of the state the instance moved to
+     * @param stub identifier of the stub that made the transition
+     */
+    public void record(String instance, int fromState, int toState, String stub) {
+        long seq = sequence.getAndIncrement();
+        slots.set((int)seq & mask, new Transition(seq, System.currentTimeMillis(), instance, fromState, toState, stub));
+    }
+
+    /**
+     * @return the maximum number of transitions kept
+     */
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    /**
+     * Visits the recorded transitions, from the oldest to the latest.
+     * 
+     * @param action the action receiving each transition
+     */
+    public void forEach(Consumer<Transition> action) {
+        long last = sequence.get();
+        for (long seq = Math.max(0, last - slots.length()); seq < last; seq++) {
+            Transition transition = slots.get((int)seq & mask);
+            if (transition != null && transition.sequence == seq) {
+                action.accept(transition);
+            }
+        }
+    }
+
+    /**
+     * A recorded state transition
+     */
+    public static final class Transition {
+
+        /**
+         * Sequence number of the transition within its scenario
+         */
+        public final long sequence;
+
+        /**
+         * Time of the transition, in milliseconds since the epoch
+         */
+        public final long timestamp;
+
+        /**
+         * The instance id
+         */
+        public final String instance;
+
+        /**
+         * Interned id of the state the instance was in, or {@link SymbolTable#UNKNOWN} if not known
+         */
+        public final int fromState;
+
+        /**
+         * Interned id of the state the instance moved to
+         */
+        public final int toState;
+
+        /**
+         * Identifier of the stub that made the transition
+         */
+        public final String stub;
+
+        Transition(long sequence, long timestamp, String instance, int fromState, int toState, String stub) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.instance = instance;
+            this.fromState = fromState;
+            this.toState = toState;
+            this.stub = stub;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * ClusteredScenarioStoreTest.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.mindprogeny.simpel.http.SimpelHttp;
+import com.mindprogeny.simpel.http.SimpelHttpResponse;
+import com.mindprogeny.wiremock.extension.scenario.store.ClusteredScenarioStore;
+import com.mindprogeny.wiremock.extension.scenario.store.ConcurrentMapScenarioStore;
+import com.mindprogeny.wiremock.extension.scenario.store.ScenarioStore;
+import com.mindprogeny.wiremock.extension.scenario.store.SymbolTable;
+
+/**
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class ClusteredScenarioStoreTest {
+
+	private static final List<String> NODES = Arrays.asList("http://localhost:55081", "http://localhost:55082");
+
+	private final ScenarioStore firstStore = new ClusteredScenarioStore(new ConcurrentMapScenarioStore(), NODES, NODES.get(0));
+
+	private final ScenarioStore secondStore = new ClusteredScenarioStore(new ConcurrentMapScenarioStore(), NODES, NODES.get(1));
+
+	/**
+	 * First WireMock node
+	 */
+	@Rule
+	public WireMockRule first = new WireMockRule(
+			WireMockConfiguration.wireMockConfig()
+			                     .port(55081)
+			                     .extensions( new ConcurrentScenarioExtension(firstStore)
+					                        , new ConcurrentScenarioManager(firstStore)));
+
+	/**
+	 * Second WireMock node
+	 */
+	@Rule
+	public WireMockRule second = new WireMockRule(
+			WireMockConfiguration.wireMockConfig()
+			                     .port(55082)
+			                     .extensions( new ConcurrentScenarioExtension(secondStore)
+					                        , new ConcurrentScenarioManager(secondStore)));
+
+	@Before
+	public void loadScenarios() throws Exception {
+        for (String node : NODES) {
+            for (int i = 1; i < 7; i++) {
+                SimpelHttpResponse response = SimpelHttp.call("POST", node + "/__admin/mappings/new",
+                        Files.readAllBytes(Paths.get(getClass().getResource("/stub/custom-concurrent-step" + i + ".json").toURI())));
+                if (response.getResponseCode() != 201) {
+                    throw new RuntimeException("Failed to load stub " + i + " on " + node);
+                }
+            }
+        }
+	}
+
+	@Test
+	public void testSessionsSpanningNodes() {
+        for (int session = 0; session < 20; session++) {
+            for (int step = 1; step < 5; step++) {
+                given().port(step % 2 == 0 ? 55082 : 55081)
+                   .with().cookie("SESSION", "session" + session)
+                   .when().get("/testCustomConcurrent")
+                   .then().body(equalTo(Integer.toString(step)));
+            }
+        }
+
+        int firstCount = localCount(firstStore);
+        int secondCount = localCount(secondStore);
+        assertEquals(20, firstCount + secondCount);
+        assertTrue(firstCount > 0 && secondCount > 0);
+
+        given().port(55082)
+           .when().get("/__admin/concurrent-scenarios/TestConcurrency")
+           .then().body("size()", equalTo(secondCount))
+                  .body("findAll { it.value != 'FIVE' }.size()", equalTo(0));
+
+        // while the count covers the whole cluster
+        given().port(55082)
+           .when().get("/__admin/concurrent-scenarios/TestConcurrency/count")
+           .then().body("instances", equalTo(20));
+
+        given().port(55081)
+           .when().delete("/__admin/concurrent-scenarios/all")
+           .then().statusCode(200);
+
+        assertEquals(0, localCount(firstStore) + localCount(secondStore));
+	}
+
+	@Test
+	public void testUnreachableNode() {
+        int scenario = ScenarioStore.SCENARIO_NAMES.intern("TestConcurrency");
+        String session = "session0";
+        for (int i = 1; firstStore.isLocal(scenario, session); i++) {
+            session = "session" + i;
+        }
+        second.stop();
+
+        // the instances of an unreachable node read as unknown and fail to transition, so their requests miss the stubs
+        assertEquals(SymbolTable.UNKNOWN, firstStore.getState(scenario, session));
+        assertFalse(firstStore.transition(scenario, session, ScenarioStore.STARTED, ScenarioStore.STARTED));
+        assertFalse(firstStore.clearInstance(scenario, session));
+
+        // and the node isn't called again for a while, even once back
+        second.start();
+        assertFalse(firstStore.transition(scenario, session, ScenarioStore.STARTED, ScenarioStore.STARTED));
+        assertEquals(0, localCount(secondStore));
+	}
+
+	@Test
+	public void testRequestView() {
+        int scenario = ScenarioStore.SCENARIO_NAMES.intern("TestConcurrency");
+        int two = ScenarioStore.STATE_NAMES.intern("TWO");
+        int three = ScenarioStore.STATE_NAMES.intern("THREE");
+        String session = "session0";
+        for (int i = 1; firstStore.isLocal(scenario, session); i++) {
+            session = "session" + i;
+        }
+        Object request = new Object();
+        ScenarioStore view = firstStore.forRequest(request);
+        assertSame(view, firstStore.forRequest(request));
+        assertNotSame(view, firstStore.forRequest(new Object()));
+        view = firstStore.forRequest(request);
+
+        // a failed transition remembers the state returned by the owner, then read without calling it
+        secondStore.setState(scenario, session, two);
+        assertFalse(view.isLocal(scenario, session));
+        assertFalse(view.transition(scenario, session, three, ScenarioStore.STARTED));
+        assertTrue(view.isLocal(scenario, session));
+        assertEquals(two, view.getState(scenario, session));
+        secondStore.setState(scenario, session, three);
+        assertEquals(two, view.getState(scenario, session));
+        assertFalse(view.transition(scenario, session, three, ScenarioStore.STARTED));
+
+        // while the store itself and the views of other requests read the owner
+        assertEquals(three, firstStore.getState(scenario, session));
+        assertTrue(firstStore.forRequest(new Object()).transition(scenario, session, three, two));
+	}
+
+	private static int localCount(ScenarioStore store) {
+        return store.countInstances(ScenarioStore.SCENARIO_NAMES.intern("TestConcurrency"));
+	}
+}
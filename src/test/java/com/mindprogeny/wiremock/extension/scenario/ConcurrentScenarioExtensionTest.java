@@ -19,9 +19,15 @@
 package com.mindprogeny.wiremock.extension.scenario;
 
 import static com.jayway.restassured.RestAssured.given;
+import static org.junit.Assert.assertThat;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -31,6 +37,7 @@ import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
 import com.mindprogeny.simpel.http.SimpelHttp;
 import com.mindprogeny.simpel.http.SimpelHttpResponse;
+import com.mindprogeny.wiremock.extension.scenario.store.ConcurrentMapScenarioStore;
 import static org.hamcrest.Matchers.*;
 
 /**
@@ -45,7 +52,7 @@ public class ConcurrentScenarioExtensionTest {
 	 */
 	@Rule
 	public WireMockRule wiremock = new WireMockRule(
-			WireMockConfiguration.wireMockConfig().port(55080).extensions(new ConcurrentScenarioExtension()));
+			WireMockConfiguration.wireMockConfig().port(55080).extensions(new ConcurrentScenarioExtension(new ConcurrentMapScenarioStore())));
 
 	@Before
 	public void beforeTest() throws Exception {
@@ -751,4 +758,71 @@ public class ConcurrentScenarioExtensionTest {
         }
     }
 
+    @Test
+    public void testUrlInstanceIdentifier() throws Exception {
+        loadStub("/stub/url-instance-step1.json");
+        loadStub("/stub/url-instance-step2.json");
+
+        given().port(55080)
+           .when().get("/testUrlInstance/a")
+           .then().body(equalTo("1"));
+
+        given().port(55080)
+           .when().get("/testUrlInstance/a?with=something")
+           .then().body(equalTo("2"));
+
+        given().port(55080)
+           .when().get("/testUrlInstance/b")
+           .then().body(equalTo("1"));
+
+        given().port(55080)
+           .when().get("/testUrlInstance/a")
+           .then().body(equalTo("DEFAULT"));
+    }
+
+    @Test
+    public void testQueryParameterInstanceIdentifier() throws Exception {
+        loadStub("/stub/query-instance-step1.json");
+        loadStub("/stub/query-instance-step2.json");
+
+        given().port(55080)
+           .when().get("/testQueryInstance?session=a")
+           .then().body(equalTo("1"));
+
+        given().port(55080)
+           .when().get("/testQueryInstance?session=a")
+           .then().body(equalTo("2"));
+
+        given().port(55080)
+           .when().get("/testQueryInstance?session=b")
+           .then().body(equalTo("1"));
+    }
+
+    @Test
+    public void testConcurrentTransitionsOnSameInstance() throws Exception {
+        loadScenarios();
+        int[] responses = new int[7];
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            results.add(executor.submit(() -> given().port(55080)
+                                                     .with().cookie("SESSION", "hammered")
+                                                     .when().get("/testCustomConcurrent")
+                                                     .asString()));
+        }
+        for (Future<String> result : results) {
+            String body = result.get();
+            if (body.matches("[1-6]")) {
+                responses[Integer.parseInt(body)]++;
+            }
+        }
+        executor.shutdown();
+
+        // Every transition happens at most once per cycle, so no step can be served more often than the one before it
+        for (int i = 2; i < 7; i++) {
+            assertThat(responses[i], lessThanOrEqualTo(responses[i - 1]));
+        }
+        assertThat(responses[1], lessThanOrEqualTo(responses[6] + 1));
+    }
+
 }
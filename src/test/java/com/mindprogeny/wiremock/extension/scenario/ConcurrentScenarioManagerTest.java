@@ -20,11 +20,17 @@ package com.mindprogeny.wiremock.extension.scenario;
 
 import static com.jayway.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -32,6 +38,7 @@ import org.junit.Test;
 
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.jayway.restassured.response.Response;
 import com.mindprogeny.simpel.http.SimpelHttp;
 import com.mindprogeny.simpel.http.SimpelHttpResponse;
 
@@ -317,6 +324,44 @@ public class ConcurrentScenarioManagerTest {
    	       .then().body(equalTo("1"));
 	}
 
+	@Test
+	public void testDeleteScenariosWithBodyInAnyOrder() {
+        given().port(55080)
+     	   .with().cookie("SESSION", "ordered")
+   	       .when().get("/testCustomConcurrent")
+   	       .then().body(equalTo("1"));
+
+        given().port(55080)
+           .with().body("{\"scenarios\": [{\"instances\": [\"ordered\", \"missing\"], \"name\": \"TestConcurrency\"}]}")
+    	   .when().delete("/__admin/concurrent-scenarios")
+ 	       .then().statusCode(200)
+ 	              .body("TestConcurrency.ordered", equalTo(true))
+ 	              .body("TestConcurrency.missing", equalTo(false));
+
+        given().port(55080)
+     	   .with().cookie("SESSION", "ordered")
+   	       .when().get("/testCustomConcurrent")
+   	       .then().body(equalTo("1"));
+
+        // a repeated scenario is reported once, with its last result
+        given().port(55080)
+           .with().body("{\"scenarios\": [{\"name\": \"TestConcurrency\", \"instances\": [\"ordered\"]}, "
+                      + "{\"name\": \"TestConcurrency\", \"instances\": [\"missing\"]}]}")
+    	   .when().delete("/__admin/concurrent-scenarios")
+ 	       .then().statusCode(200)
+ 	              .body(equalTo("{\"TestConcurrency\":{\"missing\":false}}"));
+
+        given().port(55080)
+           .with().body("{\"scenarios\": [{\"instances\": [\"ordered\"]}]}")
+    	   .when().delete("/__admin/concurrent-scenarios")
+ 	       .then().statusCode(400);
+
+        given().port(55080)
+           .with().body("{\"TestConcurrency\": [\"ordered\"]}")
+    	   .when().put("/__admin/concurrent-scenarios")
+ 	       .then().statusCode(400);
+	}
+
 	@Test
 	public void testSetScenarioState() throws IOException, URISyntaxException {
         given().port(55080)
@@ -399,4 +444,185 @@ public class ConcurrentScenarioManagerTest {
    	       .when().get("/testCustomConcurrent")
    	       .then().body(equalTo("3"));
 	}
+
+	@Test
+	public void testLoadScenarioStates() throws IOException {
+        given().port(55080)
+           .with().body("{\"scenario\":\"TestConcurrency\",\"instance\":\"bulk1\",\"state\":\"TWO\"}\n"
+                      + "{\"scenario\":\"TestConcurrency\",\"instance\":\"bulk2\",\"state\":\"THREE\"}\n")
+    	   .when().post("/__admin/concurrent-scenarios/bulk")
+ 	       .then().statusCode(200)
+ 	              .body("instances", equalTo(2));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF("TestConcurrency");
+        out.writeUTF("FOUR");
+        out.writeInt(2);
+        out.writeUTF("bulk3");
+        out.writeUTF("bulk4");
+        given().port(55080)
+           .with().contentType("application/octet-stream").body(bytes.toByteArray())
+    	   .when().post("/__admin/concurrent-scenarios/bulk")
+ 	       .then().statusCode(200)
+ 	              .body("instances", equalTo(2));
+
+        given().port(55080)
+     	   .with().cookie("SESSION", "bulk1")
+   	       .when().get("/testCustomConcurrent")
+   	       .then().body(equalTo("2"));
+
+        given().port(55080)
+     	   .with().cookie("SESSION", "bulk2")
+   	       .when().get("/testCustomConcurrent")
+   	       .then().body(equalTo("3"));
+
+        given().port(55080)
+     	   .with().cookie("SESSION", "bulk4")
+   	       .when().get("/testCustomConcurrent")
+   	       .then().body(equalTo("4"));
+
+        given().port(55080)
+           .with().body("{\"scenario\":\"TestConcurrency\",\"instance\":\"bulk5\",\"state\":\"TWO\"}\n"
+                      + "{\"scenario\":\"TestConcurrency\"}")
+    	   .when().post("/__admin/concurrent-scenarios/bulk")
+ 	       .then().statusCode(400)
+ 	              .body(containsString("Instances loaded before the error: 1"));
+	}
+
+	@Test
+	public void testLoadScenarioStatesKeepsLastLine() {
+        // the same instance in chunks far apart ends up in the state of its last line
+        StringBuilder body = new StringBuilder("{\"scenario\":\"TestConcurrency\",\"instance\":\"bulkLast\",\"state\":\"TWO\"}\n");
+        for (int i = 0; i < 3 * 8192; i++) {
+            body.append("{\"scenario\":\"TestConcurrency\",\"instance\":\"bulkFiller").append(i).append("\",\"state\":\"TWO\"}\n");
+        }
+        body.append("{\"scenario\":\"TestConcurrency\",\"instance\":\"bulkLast\",\"state\":\"THREE\"}\n");
+        given().port(55080)
+           .with().body(body.toString())
+    	   .when().post("/__admin/concurrent-scenarios/bulk")
+ 	       .then().statusCode(200);
+
+        given().port(55080)
+     	   .with().cookie("SESSION", "bulkLast")
+   	       .when().get("/testCustomConcurrent")
+   	       .then().body(equalTo("3"));
+	}
+
+	@Test
+	public void testGetEvictionCounters() {
+        given().port(55080)
+    	   .when().get("/__admin/concurrent-scenarios/evictions")
+ 	       .then().statusCode(200)
+ 	              .body("expired", greaterThanOrEqualTo(0))
+ 	              .body("evicted", greaterThanOrEqualTo(0))
+ 	              .body("rejected", greaterThanOrEqualTo(0));
+	}
+
+	@Test
+	public void testGetScenarioMetrics() {
+        given().port(55080)
+     	   .with().cookie("SESSION", "metrics")
+   	       .when().get("/testCustomConcurrent")
+   	       .then().statusCode(200);
+
+        given().port(55080)
+    	   .when().get("/__admin/concurrent-scenarios/metrics")
+ 	       .then().statusCode(200)
+ 	              .body("scenarios.TestConcurrency.matches", greaterThanOrEqualTo(1))
+ 	              .body("scenarios.TestConcurrency.transitions", greaterThanOrEqualTo(1))
+ 	              .body("scenarios.TestConcurrency.instancesCreated", greaterThanOrEqualTo(1))
+ 	              .body("scenarios.TestConcurrency.latency.count", greaterThanOrEqualTo(1))
+ 	              .body("scenarios.TestConcurrency.latency.buckets.'+Inf'", greaterThanOrEqualTo(1))
+ 	              .body("evictions.rejected", greaterThanOrEqualTo(0));
+	}
+
+	@Test
+	public void testGetPrometheusMetrics() {
+        given().port(55080)
+     	   .with().cookie("SESSION", "prometheus")
+   	       .when().get("/testCustomConcurrent")
+   	       .then().statusCode(200);
+
+        given().port(55080)
+    	   .when().get("/__admin/concurrent-scenarios/prometheus")
+ 	       .then().statusCode(200)
+ 	              .contentType(startsWith("text/plain"))
+ 	              .body(containsString("# TYPE concurrent_scenarios_instances gauge"))
+ 	              .body(containsString("concurrent_scenarios_instances_by_state{scenario=\"TestConcurrency\",state=\"TWO\"}"))
+ 	              .body(containsString("concurrent_scenarios_evictions_total{reason=\"rejected\"}"))
+ 	              .body(containsString("concurrent_scenarios_match_duration_seconds_bucket{scenario=\"TestConcurrency\",le=\"+Inf\"}"));
+	}
+
+	@Test
+	public void testGetTransitionTrace() throws Exception {
+        loadStub("/stub/traced-step1.json");
+        loadStub("/stub/traced-step2.json");
+        for (int i = 0; i < 2; i++) {
+            given().port(55080)
+         	   .with().cookie("SESSION", "traced")
+       	       .when().get("/testTracedConcurrent")
+       	       .then().statusCode(200);
+        }
+
+        given().port(55080)
+    	   .when().get("/__admin/concurrent-scenarios/TestTrace/trace?instance=traced")
+ 	       .then().statusCode(200)
+ 	              .body("size()", equalTo(2))
+ 	              .body("[0].from", equalTo("Started"))
+ 	              .body("[0].to", equalTo("TWO"))
+ 	              .body("[0].stub", equalTo("GET /testTracedConcurrent"))
+ 	              .body("[1].from", equalTo("TWO"))
+ 	              .body("[1].to", equalTo("THREE"));
+
+        given().port(55080)
+    	   .when().get("/__admin/concurrent-scenarios/NotTraced/trace")
+ 	       .then().statusCode(404);
+	}
+
+	@Test
+	public void testPaginatedAndFilteredScenario() {
+        for (String session : new String[] {"a1", "a2", "a3", "b1", "b2", "a1"}) {
+            given().port(55080)
+         	   .with().cookie("SESSION", session)
+       	       .when().get("/testCustomConcurrent")
+       	       .then().statusCode(200);
+        }
+
+        given().port(55080)
+    	   .when().get("/__admin/concurrent-scenarios/TestConcurrency?prefix=a")
+ 	       .then().body("size()", equalTo(3))
+                  .body("a1", equalTo("THREE"))
+                  .body("a2", equalTo("TWO"));
+
+        given().port(55080)
+    	   .when().get("/__admin/concurrent-scenarios/TestConcurrency?state=TWO&regex=.2")
+ 	       .then().body("size()", equalTo(2))
+                  .body("b2", equalTo("TWO"));
+
+        given().port(55080)
+    	   .when().get("/__admin/concurrent-scenarios/TestConcurrency?touchedAfter=" + (System.currentTimeMillis() + 60000))
+ 	       .then().body(equalTo("{}"));
+
+        given().port(55080)
+    	   .when().get("/__admin/concurrent-scenarios?state=THREE")
+ 	       .then().body("size()", equalTo(1))
+                  .body("TestConcurrency.a1", equalTo("THREE"));
+
+        Map<String, String> instances = new HashMap<>();
+        String cursor = null;
+        do {
+            Response response = given().port(55080)
+                .when().get("/__admin/concurrent-scenarios/TestConcurrency?limit=2" + (cursor == null ? "" : "&cursor=" + cursor));
+            Map<String, String> page = response.jsonPath().getMap("");
+            assertTrue(page.size() <= 2);
+            instances.putAll(page);
+            cursor = response.header("X-Next-Cursor");
+        } while (cursor != null);
+        assertEquals(5, instances.size());
+
+        given().port(55080)
+    	   .when().get("/__admin/concurrent-scenarios/TestConcurrency?regex=[")
+ 	       .then().statusCode(400);
+	}
 }
@@ -0,0 +1,108 @@
+/*
+ * ConcurrentScenarioStubDefinitionTest.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.mindprogeny.wiremock.extension.scenario.store.EvictionPolicy;
+
+import wiremock.org.custommonkey.xmlunit.exceptions.ConfigurationException;
+
+/**
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class ConcurrentScenarioStubDefinitionTest {
+
+    @Test
+    public void testDefinitionIsTyped() {
+        Parameters parameters = parameters();
+        parameters.put("scenarioName", "TestConcurrency");
+        parameters.put("scenarioMaxInstances", "10");
+        parameters.put("scenarioEvictionPolicy", "lfu");
+        parameters.put("someOtherParameter", true);
+
+        ConcurrentScenarioStubDefinition definition = ConcurrentScenarioStubDefinition.from(parameters);
+        assertEquals("TestConcurrency", definition.getScenarioName());
+        assertEquals(Integer.valueOf(10), definition.getScenarioMaxInstances());
+        assertEquals(EvictionPolicy.LFU, definition.getScenarioEvictionPolicy());
+        assertNull(definition.getScenarioTimeToLive());
+        assertEquals("/test", definition.getRequest().getUrl());
+        assertEquals(0, definition.getRequest().getHeaders().size());
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void testUnknownInstanceIdentifierSource() {
+        Parameters parameters = parameters();
+        parameters.put("scenarioName", "TestConcurrency");
+        parameters.put("scenarioInstanceIdentifier", "header");
+        ConcurrentScenarioStubDefinition.from(parameters);
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void testBadInstanceIdentifierRegex() {
+        Parameters parameters = parameters();
+        parameters.put("scenarioName", "TestConcurrency");
+        parameters.put("scenarioInstanceIdentifier", "url");
+        parameters.put("scenarioInstanceIdentifierPattern", "/test/(");
+        ConcurrentScenarioStubDefinition.from(parameters);
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void testInstanceIdentifierRegexWithoutGroup() {
+        Parameters parameters = parameters();
+        parameters.put("scenarioName", "TestConcurrency");
+        parameters.put("scenarioInstanceIdentifier", "url");
+        parameters.put("scenarioInstanceIdentifierPattern", "/test/[0-9]+");
+        ConcurrentScenarioStubDefinition.from(parameters);
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void testMissingInstanceIdentifierName() {
+        Parameters parameters = parameters();
+        parameters.put("scenarioName", "TestConcurrency");
+        parameters.put("scenarioInstanceIdentifier", "cookie");
+        ConcurrentScenarioStubDefinition.from(parameters);
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void testBadLimit() {
+        Parameters parameters = parameters();
+        parameters.put("scenarioTimeToLive", "soon");
+        ConcurrentScenarioStubDefinition.from(parameters);
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void testMissingRequest() {
+        ConcurrentScenarioStubDefinition.from(new Parameters());
+    }
+
+    private static Parameters parameters() {
+        Parameters parameters = new Parameters();
+        parameters.put("request", Collections.singletonMap("url", "/test"));
+        return parameters;
+    }
+}
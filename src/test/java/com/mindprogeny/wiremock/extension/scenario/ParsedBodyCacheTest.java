@@ -0,0 +1,59 @@
+/*
+ * ParsedBodyCacheTest.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class ParsedBodyCacheTest {
+
+    @Test
+    public void testJsonBodyIsParsedOnce() {
+        String body = "{\"order\": {\"id\": 1, \"items\": [\"a\", \"b\"]}}";
+        Object document = ParsedBodyCache.json(body);
+        assertSame(document, ParsedBodyCache.json(new String(body)));
+        assertNotSame(document, ParsedBodyCache.json("{\"order\": {}}"));
+
+        assertTrue(new ParsedBodyCache.JsonPathPattern("$.order.items").match(body).isExactMatch());
+        assertTrue(new ParsedBodyCache.JsonPathPattern("$.order[?(@.id == 1)]").match(new String(body)).isExactMatch());
+        assertFalse(new ParsedBodyCache.JsonPathPattern("$.order.customer").match(body).isExactMatch());
+        assertFalse(new ParsedBodyCache.JsonPathPattern("$.order").match("not json").isExactMatch());
+    }
+
+    @Test
+    public void testXmlBodyIsParsedOnce() throws Exception {
+        String body = "<order><id>1</id></order>";
+        assertSame(ParsedBodyCache.xml(body), ParsedBodyCache.xml(new String(body)));
+
+        assertTrue(new ParsedBodyCache.XPathPattern("/order/id", Collections.emptyMap()).match(body).isExactMatch());
+        assertFalse(new ParsedBodyCache.XPathPattern("/order/customer", Collections.emptyMap()).match(body).isExactMatch());
+        assertFalse(new ParsedBodyCache.XPathPattern("/order", Collections.emptyMap()).match("<order>").isExactMatch());
+    }
+}
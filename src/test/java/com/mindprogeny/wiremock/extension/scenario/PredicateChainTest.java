@@ -0,0 +1,145 @@
+/*
+ * PredicateChainTest.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
+import static com.github.tomakehurst.wiremock.client.WireMock.anyUrl;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.tomakehurst.wiremock.http.Cookie;
+import com.github.tomakehurst.wiremock.http.HttpHeader;
+import com.github.tomakehurst.wiremock.http.QueryParameter;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.matching.AnythingPattern;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
+
+/**
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class PredicateChainTest {
+
+    @Test
+    public void testCheapestFirst() {
+        RequestPattern pattern = RequestPatternBuilder.newRequestPattern(RequestMethod.ANY, anyUrl())
+                                                      .withHeader("X-Json", equalToJson("{\"a\":1}"))
+                                                      .withHeader("X-Regex", matching("[0-9]+"))
+                                                      .withHeader("X-Equal", equalTo("yes"))
+                                                      .withHeader("X-Anything", new AnythingPattern())
+                                                      .build();
+        PredicateChain chain = new PredicateChain(pattern);
+        assertEquals(3, chain.size());
+
+        List<String> evaluated = new ArrayList<>();
+        Map<String, String> headers = new HashMap<>();
+        headers.put("X-Json", "{\"a\":1}");
+        headers.put("X-Regex", "123");
+        headers.put("X-Equal", "yes");
+        assertTrue(chain.accepts(request("/", headers, Collections.emptyMap(), evaluated)));
+        assertEquals(Arrays.asList("X-Equal", "X-Regex", "X-Json"), evaluated);
+
+        // The first failing predicate short-circuits the more expensive ones
+        evaluated.clear();
+        headers.put("X-Equal", "no");
+        assertFalse(chain.accepts(request("/", headers, Collections.emptyMap(), evaluated)));
+        assertEquals(Arrays.asList("X-Equal"), evaluated);
+    }
+
+    @Test
+    public void testRegexUrl() {
+        PredicateChain chain = new PredicateChain(RequestPatternBuilder.newRequestPattern(RequestMethod.GET, urlMatching("/orders/[0-9]+")).build());
+        assertEquals(1, chain.size());
+        assertTrue(chain.accepts(request("/orders/1", Collections.emptyMap(), Collections.emptyMap(), new ArrayList<>())));
+        assertFalse(chain.accepts(request("/orders/a", Collections.emptyMap(), Collections.emptyMap(), new ArrayList<>())));
+    }
+
+    @Test
+    public void testAgreesWithRequestPattern() {
+        RequestPattern pattern = RequestPatternBuilder.newRequestPattern(RequestMethod.ANY, anyUrl())
+                                                      .withQueryParam("id", matching("[0-9]+"))
+                                                      .withCookie("session", containing("abc"))
+                                                      .withCookie("tracking", absent())
+                                                      .build();
+        PredicateChain chain = new PredicateChain(pattern);
+        Map<String, Cookie> cookies = new HashMap<>();
+        for (String url : Arrays.asList("/?id=1", "/?id=a", "/")) {
+            for (Cookie session : Arrays.asList(null, new Cookie("xabcx"), new Cookie("x", "abc"), new Cookie("x"))) {
+                for (Cookie tracking : Arrays.asList(null, new Cookie("1"))) {
+                    cookies.clear();
+                    if (session != null) {
+                        cookies.put("session", session);
+                    }
+                    if (tracking != null) {
+                        cookies.put("tracking", tracking);
+                    }
+                    Request request = request(url, Collections.emptyMap(), cookies, new ArrayList<>());
+                    assertEquals(url + " " + cookies, pattern.match(request).isExactMatch(), chain.accepts(request));
+                }
+            }
+        }
+    }
+
+    private static Request request(String url, Map<String, String> headers, Map<String, Cookie> cookies, List<String> evaluated) {
+        return (Request) Proxy.newProxyInstance(Request.class.getClassLoader(), new Class<?>[] {Request.class}, (proxy, m, args) -> {
+            switch (m.getName()) {
+                case "getMethod" :
+                    return RequestMethod.GET;
+                case "getUrl" :
+                    return url;
+                case "header" :
+                    evaluated.add((String) args[0]);
+                    String value = headers.get(args[0]);
+                    return value == null ? HttpHeader.absent((String) args[0]) : new HttpHeader((String) args[0], value);
+                case "queryParameter" :
+                    int query = url.indexOf("?" + args[0] + "=");
+                    return query < 0 
+                         ? QueryParameter.absent((String) args[0]) 
+                         : new QueryParameter((String) args[0], Arrays.asList(url.substring(query + 2 + ((String) args[0]).length())));
+                case "getCookies" :
+                    return cookies;
+                case "getHeaders" :
+                case "getBody" :
+                case "getBodyAsString" :
+                    return null;
+                default :
+                    throw new UnsupportedOperationException(m.getName());
+            }
+        });
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * StringValuePatternBuilderTest.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.Test;
+
+import com.github.tomakehurst.wiremock.matching.RegexPattern;
+import com.github.tomakehurst.wiremock.matching.StringValuePattern;
+
+/**
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class StringValuePatternBuilderTest {
+
+    @Test
+    public void testIdenticalDefinitionsShareThePattern() {
+        StringValuePattern pattern = StringValuePatternBuilder.build(Collections.singletonMap("matches", "[a-z]+"));
+        assertEquals(RegexPattern.class, pattern.getClass());
+        assertSame(pattern, StringValuePatternBuilder.build(new HashMap<>(Collections.singletonMap("matches", "[a-z]+"))));
+        assertNotSame(pattern, StringValuePatternBuilder.build(Collections.singletonMap("matches", "[0-9]+")));
+
+        Map<String,Object> json = new HashMap<>();
+        json.put("equalToJson", Collections.singletonMap("id", 1));
+        json.put("ignoreExtraElements", true);
+        StringValuePattern jsonPattern = StringValuePatternBuilder.build(json);
+        assertSame(jsonPattern, StringValuePatternBuilder.build(new HashMap<>(json)));
+
+        json.put("equalToJson", "{ \"id\" : 1 }");
+        json.put("someOtherParameter", "ignored");
+        assertSame(jsonPattern, StringValuePatternBuilder.build(json));
+
+        json.put("ignoreExtraElements", false);
+        assertNotSame(jsonPattern, StringValuePatternBuilder.build(json));
+    }
+
+    @Test
+    public void testUnknownDefinitionIsAbsent() {
+        assertSame(StringValuePattern.ABSENT, StringValuePatternBuilder.build(Collections.singletonMap("unknown", "value")));
+    }
+
+    @Test(expected = PatternSyntaxException.class)
+    public void testBadRegexIsThrown() {
+        StringValuePatternBuilder.build(Collections.singletonMap("matches", "("));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * StubFilterTest.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+
+import org.junit.Test;
+
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.mindprogeny.wiremock.extension.scenario.ConcurrentScenarioStubDefinition.RequestDefinition;
+
+/**
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class StubFilterTest {
+
+    @Test
+    public void testLiteralUrl() {
+        StubFilter filter = new StubFilter(definition("GET", "/orders?id=1", null, null));
+        assertTrue(filter.accepts(request("GET", "/orders?id=1")));
+        assertFalse(filter.accepts(request("GET", "/orders?id=2")));
+        assertFalse(filter.accepts(request("POST", "/orders?id=1")));
+    }
+
+    @Test
+    public void testLiteralUrlPath() {
+        StubFilter filter = new StubFilter(definition("ANY", null, "/orders", null));
+        assertTrue(filter.accepts(request("GET", "/orders")));
+        assertTrue(filter.accepts(request("DELETE", "/orders?id=1")));
+        assertTrue(filter.accepts(request("GET", "/ord%65rs")));
+        assertFalse(filter.accepts(request("GET", "/orders/1")));
+        assertFalse(filter.accepts(request("GET", "/order?s")));
+    }
+
+    @Test
+    public void testUrlPatternIsLeftToTheRequestPattern() {
+        StubFilter filter = new StubFilter(definition("PUT", null, null, "/orders/.*"));
+        assertTrue(filter.accepts(request("PUT", "/anything")));
+        assertFalse(filter.accepts(request("GET", "/orders/1")));
+    }
+
+    private static RequestDefinition definition(String method, String url, String urlPath, String urlPathPattern) {
+        return new RequestDefinition(url, null, urlPath, urlPathPattern, method, null, null, null, null, null, null);
+    }
+
+    private static Request request(String method, String url) {
+        return (Request) Proxy.newProxyInstance(Request.class.getClassLoader(), new Class<?>[] {Request.class}, (proxy, m, args) -> {
+            switch (m.getName()) {
+                case "getMethod" :
+                    return RequestMethod.fromString(method);
+                case "getUrl" :
+                    return url;
+                default :
+                    throw new UnsupportedOperationException(m.getName());
+            }
+        });
+    }
+}
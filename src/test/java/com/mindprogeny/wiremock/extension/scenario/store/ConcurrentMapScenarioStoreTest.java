@@ -0,0 +1,93 @@
+/*
+ * ConcurrentMapScenarioStoreTest.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class ConcurrentMapScenarioStoreTest {
+
+    @Test
+    public void testScanResumesAfterLastInstance() {
+        ConcurrentMapScenarioStore store = new ConcurrentMapScenarioStore();
+        for (int i = 0; i < 1000; i++) {
+            store.getOrInitialize(1, "kept" + i);
+            store.getOrInitialize(1, "deleted" + i);
+        }
+
+        Map<String, Integer> visits = new HashMap<>();
+        long cursor = 0;
+        int page = 0;
+        do {
+            cursor = store.scanInstances(1, cursor, 100, (instance, state, touched) -> {
+                visits.merge(instance, 1, Integer::sum);
+                return true;
+            });
+            // instances created and deleted between pages don't shift the others
+            store.getOrInitialize(1, "created" + page);
+            store.clearInstance(1, "deleted" + page++);
+        } while (cursor != 0);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("kept" + i, Integer.valueOf(1), visits.get("kept" + i));
+        }
+        assertTrue(visits.values().stream().allMatch(count -> count == 1));
+    }
+
+    @Test
+    public void testIndexFollowsInstances() {
+        ConcurrentMapScenarioStore store = new ConcurrentMapScenarioStore();
+        store.limitInstances(1, 500, EvictionPolicy.LRU);
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            String instance = Integer.toString(random.nextInt(2000));
+            if (random.nextBoolean()) {
+                store.setState(1, instance, random.nextInt(10));
+            } else {
+                store.clearInstance(1, instance);
+            }
+        }
+
+        Set<String> scanned = new HashSet<>();
+        long cursor = 0;
+        do {
+            cursor = store.scanInstances(1, cursor, 7, (instance, state, touched) -> {
+                assertEquals(store.getState(1, instance), state);
+                return scanned.add(instance);
+            });
+        } while (cursor != 0);
+        Set<String> iterated = new HashSet<>();
+        store.forEachInstance(1, (instance, state) -> iterated.add(instance));
+        assertEquals(iterated, scanned);
+        assertEquals(store.countInstances(1), scanned.size());
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * JournaledScenarioStoreTest.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class JournaledScenarioStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path journal;
+
+    private Path snapshot;
+
+    private final int scenario = ScenarioStore.SCENARIO_NAMES.intern("Journaled");
+
+    private final int cleared = ScenarioStore.SCENARIO_NAMES.intern("JournaledCleared");
+
+    private final int done = ScenarioStore.STATE_NAMES.intern("Done");
+
+    @Before
+    public void createFiles() {
+        journal = folder.getRoot().toPath().resolve("scenarios.journal");
+        snapshot = folder.getRoot().toPath().resolve("scenarios.snapshot");
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        JournaledScenarioStore store = new JournaledScenarioStore(new ConcurrentMapScenarioStore(), journal, snapshot);
+        makeChanges(store);
+        store.close();
+        assertFalse(Files.exists(snapshot));
+
+        // a record cut short by a crash is ignored
+        Files.write(journal, new byte[] {3, 0, 0}, StandardOpenOption.APPEND);
+
+        assertReplayed(new JournaledScenarioStore(new PrimitiveScenarioStore(16), journal, snapshot));
+    }
+
+    @Test
+    public void testAppendAfterCrash() throws Exception {
+        JournaledScenarioStore store = new JournaledScenarioStore(new ConcurrentMapScenarioStore(), journal, snapshot);
+        makeChanges(store);
+        store.close();
+        long size = Files.size(journal);
+
+        // a crash while appending, then changes journaled after the restart
+        Files.write(journal, new byte[] {3, 0, 0}, StandardOpenOption.APPEND);
+        store = new JournaledScenarioStore(new PrimitiveScenarioStore(16), journal, snapshot);
+        assertEquals(size, Files.size(journal));
+        store.setState(scenario, "instance2", ScenarioStore.STARTED);
+        store.setState(scenario, "afterCrash", done);
+        store.close();
+
+        store = new JournaledScenarioStore(new ConcurrentMapScenarioStore(), journal, snapshot);
+        try {
+            assertEquals(ScenarioStore.STARTED, store.getState(scenario, "instance2"));
+            assertEquals(done, store.getState(scenario, "afterCrash"));
+        } finally {
+            store.close();
+        }
+        assertReplayed(new JournaledScenarioStore(new PrimitiveScenarioStore(16), journal, snapshot), 100);
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        JournaledScenarioStore store = new JournaledScenarioStore(new PrimitiveScenarioStore(16), journal, snapshot, 1);
+        makeChanges(store);
+        store.close();
+        assertTrue(Files.exists(snapshot));
+
+        assertReplayed(new JournaledScenarioStore(new ConcurrentMapScenarioStore(), journal, snapshot));
+    }
+
+    @Test
+    public void testExpiredAndEvicted() throws Exception {
+        int expiring = ScenarioStore.SCENARIO_NAMES.intern("JournaledExpiring");
+        int limited = ScenarioStore.SCENARIO_NAMES.intern("JournaledLimited");
+        JournaledScenarioStore store = new JournaledScenarioStore(new PrimitiveScenarioStore(16), journal, snapshot);
+        store.expireAfter(expiring, 60000, 0);
+        store.limitInstances(limited, 1, EvictionPolicy.LRU);
+        store.setState(expiring, "expired", done);
+        store.setState(limited, "evicted", done);
+        store.setState(limited, "kept", done);
+        assertEquals(1, store.evictExpired(ScenarioExpiry.now() + 60000));
+        store.close();
+
+        store = new JournaledScenarioStore(new ConcurrentMapScenarioStore(), journal, snapshot);
+        try {
+            assertEquals(0, store.countInstances(expiring));
+            assertEquals(SymbolTable.UNKNOWN, store.getState(limited, "evicted"));
+            assertEquals(done, store.getState(limited, "kept"));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentTransitions() throws Exception {
+        int[] states = new int[1000];
+        states[0] = ScenarioStore.STARTED;
+        for (int i = 1; i < states.length; i++) {
+            states[i] = ScenarioStore.STATE_NAMES.intern("Journaled" + i);
+        }
+        JournaledScenarioStore store = new JournaledScenarioStore(new ConcurrentMapScenarioStore(), journal, snapshot);
+        store.getOrInitialize(scenario, "hot");
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 1; i < states.length; i++) {
+                    store.transition(scenario, "hot", states[i - 1], states[i]);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int last = store.getState(scenario, "hot");
+        store.close();
+
+        JournaledScenarioStore replayed = new JournaledScenarioStore(new PrimitiveScenarioStore(16), journal, snapshot);
+        try {
+            assertEquals(last, replayed.getState(scenario, "hot"));
+        } finally {
+            replayed.close();
+        }
+    }
+
+    private void makeChanges(ScenarioStore store) {
+        for (int i = 0; i < 100; i++) {
+            store.getOrInitialize(scenario, "instance" + i);
+            store.transition(scenario, "instance" + i, ScenarioStore.STARTED, done);
+        }
+        store.setState(scenario, "instance0", ScenarioStore.STARTED);
+        store.clearInstance(scenario, "instance1");
+        store.setState(cleared, "instance", done);
+        store.clearScenario(cleared);
+    }
+
+    private void assertReplayed(JournaledScenarioStore store) throws IOException, InterruptedException {
+        assertReplayed(store, 99);
+    }
+
+    private void assertReplayed(JournaledScenarioStore store, int instances) throws IOException, InterruptedException {
+        try {
+            assertEquals(instances, store.countInstances(scenario));
+            assertEquals(ScenarioStore.STARTED, store.getState(scenario, "instance0"));
+            assertEquals(SymbolTable.UNKNOWN, store.getState(scenario, "instance1"));
+            assertEquals(done, store.getState(scenario, "instance99"));
+            assertFalse(store.containsScenario(cleared));
+        } finally {
+            store.close();
+        }
+    }
+}
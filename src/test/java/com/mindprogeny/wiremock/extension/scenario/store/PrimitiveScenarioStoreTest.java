@@ -0,0 +1,92 @@
+/*
+ * PrimitiveScenarioStoreTest.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class PrimitiveScenarioStoreTest {
+
+    @Test
+    public void testTransitions() {
+        PrimitiveScenarioStore store = new PrimitiveScenarioStore(16);
+        assertFalse(store.containsScenario(1));
+        assertEquals(ScenarioStore.STARTED, store.getOrInitialize(1, "a"));
+        assertTrue(store.containsScenario(1));
+
+        assertTrue(store.transition(1, "a", ScenarioStore.STARTED, 2));
+        assertFalse(store.transition(1, "a", ScenarioStore.STARTED, 3));
+        assertTrue(store.transition(1, "a", 2, SymbolTable.UNKNOWN));
+        assertTrue(store.transition(1, "a", SymbolTable.UNKNOWN, 3));
+        assertEquals(3, store.getOrInitialize(1, "a"));
+        assertEquals(ScenarioStore.STARTED, store.getOrInitialize(2, "a"));
+    }
+
+    @Test
+    public void testAgainstReferenceMap() {
+        PrimitiveScenarioStore store = new PrimitiveScenarioStore(16);
+        Map<String, Integer> reference = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200000; i++) {
+            int scenario = random.nextInt(4);
+            String instance = Integer.toString(random.nextInt(5000));
+            String key = scenario + "/" + instance;
+            switch (random.nextInt(3)) {
+            case 0 :
+                int state = random.nextInt(10);
+                store.setState(scenario, instance, state);
+                reference.put(key, state);
+                break;
+            case 1 :
+                assertEquals(reference.remove(key) != null, store.clearInstance(scenario, instance));
+                break;
+            default :
+                assertEquals(reference.computeIfAbsent(key, k -> ScenarioStore.STARTED).intValue(), store.getOrInitialize(scenario, instance));
+            }
+        }
+
+        assertTrue(store.clearScenario(2));
+        assertFalse(store.clearScenario(2));
+        reference.keySet().removeIf(key -> key.startsWith("2/"));
+
+        Map<String, Integer> stored = new HashMap<>();
+        for (int scenario = 0; scenario < 4; scenario++) {
+            int scenarioId = scenario;
+            store.forEachInstance(scenario, (instance, state) -> stored.put(scenarioId + "/" + instance, state));
+        }
+        assertEquals(reference, stored);
+
+        store.clearAll();
+        assertFalse(store.containsScenario(0));
+        assertEquals(ScenarioStore.STARTED, store.getOrInitialize(0, "1"));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * ScenarioCapacityTest.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class ScenarioCapacityTest {
+
+    @Test
+    public void testConcurrentMapStoreCapacity() {
+        testScenarioCapacity(new ConcurrentMapScenarioStore());
+        testGlobalCapacity(new ConcurrentMapScenarioStore());
+    }
+
+    @Test
+    public void testPrimitiveStoreCapacity() {
+        testScenarioCapacity(new PrimitiveScenarioStore(16));
+        testGlobalCapacity(new PrimitiveScenarioStore(16));
+    }
+
+    private void testScenarioCapacity(ScenarioStore store) {
+        store.limitInstances(0, 10, EvictionPolicy.LRU);
+        store.limitInstances(1, 10, EvictionPolicy.REJECT);
+
+        for (int i = 0; i < 1000; i++) {
+            store.getOrInitialize(0, "lru" + i);
+            store.getOrInitialize(1, "reject" + i);
+            store.getOrInitialize(2, "unlimited" + i);
+        }
+
+        assertEquals(10, count(store, 0));
+        assertEquals(10, count(store, 1));
+        assertEquals(1000, count(store, 2));
+        assertEquals(990, store.getEvictionCounters().getEvicted());
+        assertEquals(990, store.getEvictionCounters().getRejected());
+
+        assertEquals(SymbolTable.UNKNOWN, store.getOrInitialize(1, "reject10"));
+        assertEquals(ScenarioStore.STARTED, store.getOrInitialize(1, "reject9"));
+        assertTrue(!store.transition(1, "reject10", SymbolTable.UNKNOWN, 1));
+        assertTrue(store.clearInstance(1, "reject9"));
+        assertTrue(store.transition(1, "reject10", SymbolTable.UNKNOWN, 1));
+    }
+
+    private void testGlobalCapacity(ScenarioStore store) {
+        store.limitInstances(100, EvictionPolicy.LRU);
+
+        for (int i = 0; i < 1000; i++) {
+            store.getOrInitialize(i % 3, "instance" + i);
+        }
+
+        assertEquals(100, count(store, 0) + count(store, 1) + count(store, 2));
+        assertEquals(900, store.getEvictionCounters().getEvicted());
+    }
+
+    private int count(ScenarioStore store, int scenarioId) {
+        int[] count = new int[1];
+        store.forEachInstance(scenarioId, (instance, state) -> count[0]++);
+        return count[0];
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * ScenarioExpiryTest.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class ScenarioExpiryTest {
+
+    @Test
+    public void testConcurrentMapStoreExpiry() {
+        testExpiry(new ConcurrentMapScenarioStore());
+    }
+
+    @Test
+    public void testPrimitiveStoreExpiry() {
+        testExpiry(new PrimitiveScenarioStore(16));
+    }
+
+    private void testExpiry(ScenarioStore store) {
+        assertEquals(0, store.evictExpired(Long.MAX_VALUE));
+        store.expireAfter(0, 60000, 0);
+        store.expireAfter(1, 0, 10000);
+
+        long start = ScenarioExpiry.now();
+        for (int i = 0; i < 100; i++) {
+            store.getOrInitialize(0, "ttl" + i);
+            store.getOrInitialize(1, "idle" + i);
+            store.getOrInitialize(2, "forever" + i);
+        }
+
+        assertEquals(0, store.evictExpired(start));
+        assertEquals(100, store.evictExpired(ScenarioExpiry.now() + 10000));
+        assertEquals(SymbolTable.UNKNOWN, store.getState(1, "idle0"));
+        assertEquals(ScenarioStore.STARTED, store.getState(0, "ttl0"));
+
+        assertEquals(100, store.evictExpired(ScenarioExpiry.now() + 60000));
+        assertEquals(SymbolTable.UNKNOWN, store.getState(0, "ttl0"));
+        assertEquals(ScenarioStore.STARTED, store.getState(2, "forever99"));
+
+        int[] remaining = new int[1];
+        store.forEachInstance(2, (instance, state) -> remaining[0]++);
+        assertEquals(100, remaining[0]);
+    }
+}
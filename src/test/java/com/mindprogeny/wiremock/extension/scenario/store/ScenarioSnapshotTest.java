@@ -0,0 +1,94 @@
+/*
+ * ScenarioSnapshotTest.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class ScenarioSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testConcurrentMapStoreSnapshot() throws IOException {
+        testSnapshot(new ConcurrentMapScenarioStore(), new ConcurrentMapScenarioStore());
+    }
+
+    @Test
+    public void testPrimitiveStoreSnapshot() throws IOException {
+        testSnapshot(new PrimitiveScenarioStore(16), new PrimitiveScenarioStore(16));
+    }
+
+    @Test
+    public void testInstanceLargerThanBuffer() throws IOException {
+        int scenario = ScenarioStore.SCENARIO_NAMES.intern("SnapshotLarge");
+        char[] id = new char[3 * 1024 * 1024];
+        Arrays.fill(id, 'x');
+        ScenarioStore saved = new ConcurrentMapScenarioStore();
+        saved.setState(scenario, new String(id), ScenarioStore.STARTED);
+        saved.setState(scenario, "small", ScenarioStore.STARTED);
+
+        Path file = folder.getRoot().toPath().resolve("large.snapshot");
+        assertEquals(2, ScenarioSnapshot.write(saved, file));
+        ScenarioStore loaded = new ConcurrentMapScenarioStore();
+        assertEquals(2, ScenarioSnapshot.read(loaded, file));
+        assertEquals(ScenarioStore.STARTED, loaded.getState(scenario, new String(id)));
+        assertEquals(ScenarioStore.STARTED, loaded.getState(scenario, "small"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidSnapshot() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, new byte[] {1, 2, 3, 4, 5});
+        ScenarioSnapshot.read(new ConcurrentMapScenarioStore(), file);
+    }
+
+    private void testSnapshot(ScenarioStore saved, ScenarioStore loaded) throws IOException {
+        int first = ScenarioStore.SCENARIO_NAMES.intern("SnapshotFirst");
+        int second = ScenarioStore.SCENARIO_NAMES.intern("SnapshotSecond");
+        int done = ScenarioStore.STATE_NAMES.intern("Done");
+        for (int i = 0; i < 5000; i++) {
+            saved.setState(first, "instance-" + i, i % 2 == 0 ? ScenarioStore.STARTED : done);
+        }
+        saved.setState(second, "s\u00e9ssion", done);
+
+        Path file = folder.getRoot().toPath().resolve("scenarios.snapshot");
+        assertEquals(5001, ScenarioSnapshot.write(saved, file));
+        assertEquals(5001, ScenarioSnapshot.read(loaded, file));
+
+        assertEquals(5000, loaded.countInstances(first));
+        assertEquals(ScenarioStore.STARTED, loaded.getState(first, "instance-0"));
+        assertEquals(done, loaded.getState(first, "instance-4999"));
+        assertEquals(done, loaded.getState(second, "s\u00e9ssion"));
+    }
+}
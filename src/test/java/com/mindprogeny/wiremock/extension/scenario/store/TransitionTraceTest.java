@@ -0,0 +1,57 @@
+/*
+ * TransitionTraceTest.java, 18 Oct 2026
+ * Created by Joao Viegas (joao.viegas@mindprogeny.com)
+ *
+ * Copyright (c) 2018 Mind Progeny.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mindprogeny.wiremock.extension.scenario.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author Jo&atilde;o Viegas (joao.viegas@mindprogeny.com)
+ * @since 18 Oct 2026
+ *
+ */
+public class TransitionTraceTest {
+
+    @Test
+    public void testTraceKeepsLatestTransitions() {
+        ScenarioMetrics metrics = new ScenarioMetrics();
+        assertNull(metrics.forScenario(0).getTrace());
+
+        metrics.traceTransitions(0, 5);
+        TransitionTrace trace = metrics.forScenario(0).getTrace();
+        assertEquals(8, trace.getCapacity());
+
+        for (int i = 0; i < 20; i++) {
+            trace.record("instance" + i, ScenarioStore.STARTED, ScenarioStore.STARTED, "stub");
+        }
+        List<String> instances = new ArrayList<>();
+        trace.forEach(transition -> instances.add(transition.instance));
+        assertEquals(8, instances.size());
+        assertEquals("instance12", instances.get(0));
+        assertEquals("instance19", instances.get(7));
+
+        metrics.traceTransitions(0, 0);
+        assertNull(metrics.forScenario(0).getTrace());
+    }
+}